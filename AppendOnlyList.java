@@ -0,0 +1,64 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// List that only grows at the end. snapshot() is O(1): it shares the backing array, since
+// slots below the snapshot's size are never written again (growth copies into a new array).
+// Mutation must be externally synchronized; snapshots can be read from any thread once published.
+
+public class AppendOnlyList<T> extends AbstractList<T> implements RandomAccess {
+
+    private Object[] elements = new Object[16];
+    private int size;
+
+    @Override
+    public boolean add(T element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = element;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Immutable view of the current contents
+    public List<T> snapshot() {
+        return new View<>(elements, size);
+    }
+
+    private static class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        View(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,33 +1,31 @@
-public class Book {
+// A catalogue entry. Its text is held either as ordinary Strings or, with off-heap string storage
+// enabled (see StringArena), as arena handles; Book.of() picks one representation for the process,
+// so each object only carries the fields that representation uses.
+
+public abstract class Book {
+    private static final StringArena ARENA = StringArena.shared();
+
     private int id;
-    private String title;
-    private String author;
-    private String category;
     private boolean available;
 
-    public Book(int id, String title, String author, String category) {
+    protected Book(int id) {
         this.id = id;
-        this.title = title;
-        this.author = author;
-        this.category = category;
         this.available = true; // by default
     }
 
+    public static Book of(int id, String title, String author, String category) {
+        return ARENA != null ? new OffHeap(id, title, author, category) : new OnHeap(id, title, author, category);
+    }
+
     public int getId() {
         return id;
     }
 
-    public String getTitle() {
-        return title;
-    }
+    public abstract String getTitle();
 
-    public String getAuthor() {
-        return author;
-    }
+    public abstract String getAuthor();
 
-    public String getCategory() {
-        return category;
-    }
+    public abstract String getCategory();
 
     public boolean isAvailable() {
         return available;
@@ -41,10 +39,66 @@ public class Book {
     public String toString() {
         return "Book{" +
                 "id=" + id +
-                ", title='" + title + '\'' +
-                ", author='" + author + '\'' +
-                ", category='" + category + '\'' +
+                ", title='" + getTitle() + '\'' +
+                ", author='" + getAuthor() + '\'' +
+                ", category='" + getCategory() + '\'' +
                 ", available=" + (available ? "Yes" : "No") +
                 '}';
     }
+
+    private static final class OnHeap extends Book {
+        private final String title;
+        private final String author;
+        private final String category;
+
+        OnHeap(int id, String title, String author, String category) {
+            super(id);
+            this.title = title;
+            this.author = author;
+            this.category = category;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getAuthor() {
+            return author;
+        }
+
+        @Override
+        public String getCategory() {
+            return category;
+        }
+    }
+
+    private static final class OffHeap extends Book {
+        private final long titleRef;
+        private final long authorRef;
+        private final long categoryRef;
+
+        OffHeap(int id, String title, String author, String category) {
+            super(id);
+            this.titleRef = ARENA.store(title);
+            this.authorRef = ARENA.store(author);
+            this.categoryRef = ARENA.store(category);
+        }
+
+        @Override
+        public String getTitle() {
+            return ARENA.load(titleRef);
+        }
+
+        @Override
+        public String getAuthor() {
+            return ARENA.load(authorRef);
+        }
+
+        @Override
+        public String getCategory() {
+            return ARENA.load(categoryRef);
+        }
+    }
 }
@@ -0,0 +1,89 @@
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Lazy query over the books of a LibraryService, created with LibraryService.queryBooks().
+// An id range is pushed down to a position range of the book list; the other criteria are
+// checked per book as the result is pulled, against one snapshot.
+
+public class BookQuery {
+
+    private final LibraryService service;
+    private int fromId = Integer.MIN_VALUE;
+    private int toId = Integer.MAX_VALUE;
+    private String titleKeyword;
+    private String authorKeyword;
+    private String category;
+    private boolean availableOnly;
+    private LibrarySnapshot snapshot;
+
+    BookQuery(LibraryService service) {
+        this.service = service;
+    }
+
+    public BookQuery idBetween(int fromId, int toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+        return this;
+    }
+
+    public BookQuery titleContains(String keyword) {
+        this.titleKeyword = keyword.toLowerCase();
+        return this;
+    }
+
+    public BookQuery authorContains(String keyword) {
+        this.authorKeyword = keyword.toLowerCase();
+        return this;
+    }
+
+    public BookQuery category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    public BookQuery availableOnly() {
+        this.availableOnly = true;
+        return this;
+    }
+
+    // Evaluate against this snapshot of the same service rather than the current one, so the
+    // caller can read book state from the very snapshot the results came from
+    public BookQuery asOf(LibrarySnapshot snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    // Evaluated lazily, in id order, against the snapshot current when this is called
+    public Stream<Book> stream() {
+        LibrarySnapshot snap = snapshot != null ? snapshot : service.snapshot();
+        List<Book> books = snap.getBooks();
+        String title = titleKeyword;
+        String author = authorKeyword;
+        String cat = category;
+        boolean available = availableOnly;
+
+        int from = Math.min(service.firstIndexAtOrAfter(fromId), books.size());
+        int to = Math.min(service.indexAfter(toId), books.size());
+        IntStream positions = IntStream.range(from, Math.max(from, to));
+        if (available) {
+            positions = positions.filter(snap::isAvailable);
+        }
+        Stream<Book> results = positions.mapToObj(books::get);
+        if (title != null) {
+            results = results.filter(b -> b.getTitle().toLowerCase().contains(title));
+        }
+        if (author != null) {
+            results = results.filter(b -> b.getAuthor().toLowerCase().contains(author));
+        }
+        if (cat != null) {
+            results = results.filter(b -> b.getCategory().equalsIgnoreCase(cat));
+        }
+        return results;
+    }
+
+    public Flow.Publisher<Book> publisher() {
+        return new LibraryPublisher<>(this::stream);
+    }
+}
@@ -0,0 +1,49 @@
+import java.lang.management.ManagementFactory;
+
+// Measures heap allocation per issue/return pair on the circulation fast path.
+//
+//   java CirculationBenchmark 5000000
+//
+// Uses the per-thread allocation counter of the HotSpot ThreadMXBean, so it needs no extra
+// tooling. The only allocation expected per pair is the Loan record itself (plus amortised
+// growth of the loan list).
+
+public class CirculationBenchmark {
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        LibraryService service = new LibraryService(1, 1);
+        service.setQuiet(true);
+        for (int i = 0; i < 10_000; i++) {
+            service.addBook("Title " + i, "Author " + (i % 500), "Category " + (i % 20));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            service.addMember("Member " + i, "member" + i + "@example.com", "98" + (10_000_000 + i));
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        run(service, 0, operations / 5); // warm-up, lets the JIT compile the fast path
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        run(service, operations / 5, operations);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        int measured = operations - operations / 5;
+        System.out.printf("%d issue/return pairs: %.1f ns/pair, %.1f bytes/pair%n",
+                measured, (double) elapsed / measured, (double) bytes / measured);
+    }
+
+    private static void run(LibraryService service, int from, int to) {
+        int loanId = service.getLoans().size() + 1;
+        for (int i = from; i < to; i++) {
+            service.issueBook(1 + (i % 10_000), 1 + (i % 1_000));
+            service.returnBook(loanId++);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+// One entry of the replicated circulation log: a single addBook/addMember/issueBook/returnBook
+
+public class CirculationEvent {
+
+    public static final byte BOOK_ADDED = 1;
+    public static final byte MEMBER_ADDED = 2;
+    public static final byte BOOK_ISSUED = 3;
+    public static final byte BOOK_RETURNED = 4;
+
+    private final long sequence;
+    private final byte type;
+    private final int id;
+    private final int bookId;
+    private final int memberId;
+    private final long epochDay;
+    private final String text1;
+    private final String text2;
+    private final String text3;
+
+    private CirculationEvent(long sequence, byte type, int id, int bookId, int memberId, long epochDay,
+            String text1, String text2, String text3) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.bookId = bookId;
+        this.memberId = memberId;
+        this.epochDay = epochDay;
+        this.text1 = text1;
+        this.text2 = text2;
+        this.text3 = text3;
+    }
+
+    public static CirculationEvent bookAdded(long sequence, Book b) {
+        return new CirculationEvent(sequence, BOOK_ADDED, b.getId(), 0, 0, 0,
+                b.getTitle(), b.getAuthor(), b.getCategory());
+    }
+
+    public static CirculationEvent memberAdded(long sequence, Member m) {
+        return new CirculationEvent(sequence, MEMBER_ADDED, m.getId(), 0, 0, 0,
+                m.getName(), m.getEmail(), m.getPhone());
+    }
+
+    public static CirculationEvent bookIssued(long sequence, Loan l) {
+        return new CirculationEvent(sequence, BOOK_ISSUED, l.getId(), l.getBook().getId(), l.getMember().getId(),
+                l.getIssueEpochDay(), "", "", "");
+    }
+
+    public static CirculationEvent bookReturned(long sequence, Loan l) {
+        return new CirculationEvent(sequence, BOOK_RETURNED, l.getId(), 0, 0,
+                l.getReturnEpochDay(), "", "", "");
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    // Replays this event against a replica; returns false if the replica has diverged
+    public boolean applyTo(LibraryService service) {
+        switch (type) {
+            case BOOK_ADDED:
+                return service.addBook(text1, text2, text3).getId() == id;
+            case MEMBER_ADDED:
+                Member member = service.addMember(text1, text2, text3);
+                return member != null && member.getId() == id;
+            case BOOK_ISSUED:
+                service.issueBook(bookId, memberId, LocalDate.ofEpochDay(epochDay));
+                Loan issued = service.findLoanById(id);
+                return issued != null && issued.getBook().getId() == bookId;
+            case BOOK_RETURNED:
+                service.returnBook(id, LocalDate.ofEpochDay(epochDay));
+                Loan returned = service.findLoanById(id);
+                return returned != null && returned.isReturned();
+            default:
+                return false;
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type);
+        out.writeInt(id);
+        out.writeInt(bookId);
+        out.writeInt(memberId);
+        out.writeLong(epochDay);
+        out.writeUTF(text1);
+        out.writeUTF(text2);
+        out.writeUTF(text3);
+    }
+
+    public static CirculationEvent readFrom(DataInput in) throws IOException {
+        return new CirculationEvent(in.readLong(), in.readByte(), in.readInt(), in.readInt(), in.readInt(),
+                in.readLong(), in.readUTF(), in.readUTF(), in.readUTF());
+    }
+
+    @Override
+    public String toString() {
+        return "CirculationEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+// Notified after each successful mutation of a LibraryService, on the thread that made it
+
+public interface CirculationListener {
+
+    void bookAdded(Book book);
+
+    void memberAdded(Member member);
+
+    void bookIssued(Loan loan);
+
+    void bookReturned(Loan loan);
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Growable bit table with cheap frozen copies. Bits live in fixed-size chunks; freeze() copies
+// only the chunk directory and starts a new epoch, and a writer copies a chunk the first time it
+// touches it in that epoch. Frozen copies are therefore never modified afterwards.
+// Mutation and freeze() must be externally synchronized.
+
+public class CopyOnWriteFlags {
+
+    private static final int CHUNK_SHIFT = 12; // 4096 flags (64 longs) per chunk
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private long[][] chunks = new long[0][];
+    private long[] chunkEpochs = new long[0];
+    private long epoch = 1;
+    private int size;
+
+    public void add(boolean value) {
+        int chunk = size >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(4, chunk * 2));
+            chunkEpochs = Arrays.copyOf(chunkEpochs, chunks.length);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new long[CHUNK_SIZE / 64];
+            chunkEpochs[chunk] = epoch;
+        }
+        size++;
+        set(size - 1, value);
+    }
+
+    public void set(int index, boolean value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int c = index >>> CHUNK_SHIFT;
+        long[] chunk = chunks[c];
+        if (chunkEpochs[c] != epoch) {
+            chunk = chunk.clone(); // still shared with a frozen copy
+            chunks[c] = chunk;
+            chunkEpochs[c] = epoch;
+        }
+        int bit = index & (CHUNK_SIZE - 1);
+        if (value) {
+            chunk[bit >>> 6] |= 1L << bit;
+        } else {
+            chunk[bit >>> 6] &= ~(1L << bit);
+        }
+    }
+
+    public boolean get(int index) {
+        return get(chunks, index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Calls action for every index below before.size() that is set now but was clear in before.
+    // Chunks not written since before was frozen are still the same array and are skipped.
+    public void forEachSetSince(Frozen before, IntConsumer action) {
+        int chunkCount = (before.size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        for (int c = 0; c < chunkCount; c++) {
+            long[] now = chunks[c];
+            long[] then = before.chunks[c];
+            if (now == then) {
+                continue;
+            }
+            for (int w = 0; w < now.length; w++) {
+                long added = now[w] & ~then[w];
+                while (added != 0) {
+                    int index = (c << CHUNK_SHIFT) + (w << 6) + Long.numberOfTrailingZeros(added);
+                    if (index >= before.size) {
+                        return;
+                    }
+                    action.accept(index);
+                    added &= added - 1;
+                }
+            }
+        }
+    }
+
+    public Frozen freeze() {
+        epoch++;
+        return new Frozen(chunks.clone(), size);
+    }
+
+    private static boolean get(long[][] chunks, int index) {
+        int bit = index & (CHUNK_SIZE - 1);
+        return (chunks[index >>> CHUNK_SHIFT][bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // Immutable copy of the flags as of freeze()
+    public static class Frozen {
+        private final long[][] chunks;
+        private final int size;
+
+        private Frozen(long[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        public boolean get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return CopyOnWriteFlags.get(chunks, index);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int countSet() {
+            int count = 0;
+            for (long[] chunk : chunks) {
+                if (chunk != null) {
+                    for (long word : chunk) {
+                        count += Long.bitCount(word);
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
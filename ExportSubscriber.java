@@ -0,0 +1,64 @@
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+// Writes every item of a query publisher as one line, requesting batchSize items at a time,
+// so at most one batch is in flight however large the result is.
+
+public class ExportSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final PrintStream out;
+    private final Function<? super T, String> format;
+    private final int batchSize;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private Flow.Subscription subscription;
+    private int remainingInBatch;
+    private long written;
+    private volatile Throwable error;
+
+    public ExportSubscriber(PrintStream out, Function<? super T, String> format, int batchSize) {
+        this.out = out;
+        this.format = format;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        remainingInBatch = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        out.println(format.apply(item));
+        written++;
+        if (--remainingInBatch == 0) {
+            remainingInBatch = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        finished.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        out.flush();
+        finished.countDown();
+    }
+
+    // Blocks until the export has finished; returns the number of lines written
+    public long await() throws InterruptedException {
+        finished.await();
+        if (error != null) {
+            throw new IllegalStateException("Export failed: " + error.getMessage(), error);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,41 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Loads books and members from a tab-separated text file, one record per line:
+//   book<TAB>title<TAB>author<TAB>category
+//   member<TAB>name<TAB>email<TAB>phone
+// Blank lines and lines starting with '#' are ignored.
+
+public class FileDataSource implements LibraryDataSource {
+
+    private final Path path;
+
+    public FileDataSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void load(LibraryService service) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 4 && fields[0].equals("book")) {
+                    service.addBook(fields[1], fields[2], fields[3]);
+                } else if (fields.length == 4 && fields[0].equals("member")) {
+                    service.addMember(fields[1], fields[2], fields[3]);
+                } else {
+                    throw new IOException(path + ":" + lineNumber + ": unrecognised record");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Typo-tolerant, ranked search over book titles, authors and categories.
+// Each distinct word is indexed by its letter trigrams; a query word only runs the
+// (bounded) edit-distance check against words sharing enough trigrams to be within reach.
+//
+// Queries take no lock. The trigram lists and posting lists are append-only arrays published
+// through a volatile size (growth copies into a new array; published slots are never rewritten)
+// and the trigram map is concurrent, so add() never waits for a query however broad it is.
+// Each query word scores at most MAX_POSTINGS_PER_WORD postings, closest words first, which keeps
+// the memory and latency of a broad query bounded: a very common word only ranks among the first
+// books indexed under it.
+
+public class FuzzySearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 1;
+    private static final int MAX_POSTINGS_PER_WORD = 50_000;
+
+    private final Map<String, Term> terms = new HashMap<>(); // writer side only
+    private final Map<String, TermList> termsByTrigram = new ConcurrentHashMap<>();
+
+    private static class Posting {
+        final Book book;
+        final int weight;
+
+        Posting(Book book, int weight) {
+            this.book = book;
+            this.weight = weight;
+        }
+    }
+
+    // Readers must read size before postings; the writer publishes them in the opposite order
+    private static class Term {
+        final String text;
+        volatile Posting[] postings = new Posting[1];
+        volatile int size;
+
+        Term(String text) {
+            this.text = text;
+        }
+
+        void add(Posting posting) {
+            Posting[] array = postings;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size] = posting;
+            postings = array;
+            size = size + 1;
+        }
+    }
+
+    // Words containing one trigram, published like Term's postings
+    private static class TermList {
+        volatile Term[] terms = new Term[2];
+        volatile int size;
+
+        void add(Term term) {
+            Term[] array = terms;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size] = term;
+            terms = array;
+            size = size + 1;
+        }
+    }
+
+    // A candidate word for one query word, with its postings as of the lookup
+    private static class Match {
+        final String text;
+        final Posting[] postings;
+        final int size;
+        int distance;
+
+        Match(Term term) {
+            this.text = term.text;
+            this.size = term.size;
+            this.postings = term.postings;
+        }
+    }
+
+    public synchronized void add(Book book) {
+        for (String word : tokenize(book.getTitle())) {
+            insert(word, new Posting(book, TITLE_WEIGHT));
+        }
+        for (String word : tokenize(book.getAuthor())) {
+            insert(word, new Posting(book, AUTHOR_WEIGHT));
+        }
+        for (String word : tokenize(book.getCategory())) {
+            insert(word, new Posting(book, CATEGORY_WEIGHT));
+        }
+    }
+
+    private void insert(String word, Posting posting) {
+        Term term = terms.get(word);
+        if (term == null) {
+            term = new Term(word);
+            terms.put(word, term);
+            for (String gram : trigrams(word)) {
+                termsByTrigram.computeIfAbsent(gram, k -> new TermList()).add(term);
+            }
+        }
+        term.add(posting);
+    }
+
+    // Returns at most k books, best match first
+    public List<Book> search(String query, int k) {
+        List<Book> results = new ArrayList<>();
+        for (Map.Entry<Book, Integer> e : searchScored(query, k)) {
+            results.add(e.getKey());
+        }
+        return results;
+    }
+
+    // Same as search(), with each book's score, so ranked results from several indexes can be merged
+    public List<Map.Entry<Book, Integer>> searchScored(String query, int k) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Book, Integer> scores = new HashMap<>();
+        for (String word : words) {
+            int maxDistance = maxTypos(word);
+            List<Match> matches = new ArrayList<>();
+            for (Term term : candidates(word, maxDistance)) {
+                Match m = new Match(term);
+                m.distance = distance(word, m.text, maxDistance);
+                if (m.distance <= maxDistance) {
+                    matches.add(m);
+                }
+            }
+            matches.sort((a, b) -> a.distance != b.distance
+                    ? Integer.compare(a.distance, b.distance) : a.text.compareTo(b.text));
+
+            // Best score this query word contributes to each book
+            Map<Book, Integer> best = new HashMap<>();
+            int budget = MAX_POSTINGS_PER_WORD;
+            for (Match m : matches) {
+                int n = Math.min(m.size, budget);
+                for (int i = 0; i < n; i++) {
+                    Posting p = m.postings[i];
+                    best.merge(p.book, p.weight * (maxDistance + 1 - m.distance), Math::max);
+                }
+                budget -= n;
+                if (budget == 0) {
+                    break;
+                }
+            }
+            best.forEach((book, score) -> scores.merge(book, score, Integer::sum));
+        }
+
+        PriorityQueue<Map.Entry<Book, Integer>> heap = new PriorityQueue<>(FuzzySearchIndex::compareWorstFirst);
+        for (Map.Entry<Book, Integer> e : scores.entrySet()) {
+            heap.offer(e);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Book, Integer>> results = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            results.add(0, heap.poll());
+        }
+        return results;
+    }
+
+    // q-gram lemma: a word within d edits shares at least len + 2 - 3d padded trigrams
+    private List<Term> candidates(String word, int maxDistance) {
+        List<String> grams = trigrams(word);
+        int minShared = grams.size() - 3 * maxDistance;
+        Map<Term, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            TermList list = termsByTrigram.get(gram);
+            if (list != null) {
+                int n = list.size;
+                Term[] matches = list.terms;
+                for (int i = 0; i < n; i++) {
+                    // Length filter first, so the padded edge trigrams ("$$c", "d$$") that most
+                    // words share do not fill the count map
+                    if (Math.abs(matches[i].text.length() - word.length()) <= maxDistance) {
+                        shared.merge(matches[i], 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        List<Term> result = new ArrayList<>();
+        for (Map.Entry<Term, Integer> e : shared.entrySet()) {
+            if (e.getValue() >= minShared) {
+                result.add(e.getKey());
+            }
+        }
+        return result;
+    }
+
+    static int compareWorstFirst(Map.Entry<Book, Integer> a, Map.Entry<Book, Integer> b) {
+        int byScore = Integer.compare(a.getValue(), b.getValue());
+        return byScore != 0 ? byScore : Integer.compare(b.getKey().getId(), a.getKey().getId());
+    }
+
+    private static int maxTypos(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    // Lower-cased runs of letters/digits (hand-rolled rather than a regex split to keep startup lean)
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static List<String> trigrams(String word) {
+        String padded = "$$" + word + "$$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Levenshtein distance, giving up early (returning max + 1) once it must exceed max
+    private static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Circulation reports (popular titles, per-category circulation, loan duration, member activity).
+// Rollups are updated on every issue/return so the common reports are instant;
+// compute() recomputes them from a snapshot of the full loan history with one parallel pass
+// (see LibraryService.rebuildAnalytics). recordIssue, recordReturn and install must be called
+// under the service lock.
+
+public class LibraryAnalytics {
+
+    static class Rollups {
+        final ConcurrentHashMap<Book, LongAdder> borrowsByBook = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Member, LongAdder> borrowsByMember = new ConcurrentHashMap<>();
+        final LongAdder returnedLoans = new LongAdder();
+        final LongAdder returnedLoanDays = new LongAdder();
+    }
+
+    // Per-thread partial result of rebuild(), merged pairwise by the parallel stream
+    private static class Partial {
+        final Map<Book, long[]> byBook = new HashMap<>();
+        final Map<Member, long[]> byMember = new HashMap<>();
+        long returnedLoans;
+        long returnedLoanDays;
+
+        void add(Loan loan, boolean returned) {
+            byBook.computeIfAbsent(loan.getBook(), k -> new long[1])[0]++;
+            byMember.computeIfAbsent(loan.getMember(), k -> new long[1])[0]++;
+            if (returned) {
+                returnedLoans++;
+                returnedLoanDays += loanDays(loan);
+            }
+        }
+
+        void merge(Partial other) {
+            other.byBook.forEach((k, v) -> byBook.computeIfAbsent(k, x -> new long[1])[0] += v[0]);
+            other.byMember.forEach((k, v) -> byMember.computeIfAbsent(k, x -> new long[1])[0] += v[0]);
+            returnedLoans += other.returnedLoans;
+            returnedLoanDays += other.returnedLoanDays;
+        }
+    }
+
+    // Replaced as a whole by install(), so reports never see a half-rebuilt set of rollups
+    private volatile Rollups rollups = new Rollups();
+
+    // ---------- INCREMENTAL ROLLUPS ----------
+
+    public void recordIssue(Loan loan) {
+        recordIssue(rollups, loan);
+    }
+
+    public void recordReturn(Loan loan) {
+        recordReturn(rollups, loan);
+    }
+
+    static void recordIssue(Rollups r, Loan loan) {
+        r.borrowsByBook.computeIfAbsent(loan.getBook(), k -> new LongAdder()).increment();
+        r.borrowsByMember.computeIfAbsent(loan.getMember(), k -> new LongAdder()).increment();
+    }
+
+    static void recordReturn(Rollups r, Loan loan) {
+        r.returnedLoans.increment();
+        r.returnedLoanDays.add(loanDays(loan));
+    }
+
+    // Recomputes every rollup from the snapshot's loans, e.g. after a bulk import of loan history.
+    // The loans are split across the fork-join common pool in a single pass; loan status comes
+    // from the snapshot, not the live Loan objects. Needs no lock; the result is not installed.
+    Rollups compute(LibrarySnapshot snap) {
+        List<Loan> loans = snap.getLoans();
+        Partial totals = IntStream.range(0, loans.size()).parallel()
+                .collect(Partial::new, (p, i) -> p.add(loans.get(i), snap.isReturned(i)), Partial::merge);
+
+        Rollups rebuilt = new Rollups();
+        fill(rebuilt.borrowsByBook, totals.byBook);
+        fill(rebuilt.borrowsByMember, totals.byMember);
+        rebuilt.returnedLoans.add(totals.returnedLoans);
+        rebuilt.returnedLoanDays.add(totals.returnedLoanDays);
+        return rebuilt;
+    }
+
+    void install(Rollups rebuilt) {
+        rollups = rebuilt;
+    }
+
+    private static <K> void fill(ConcurrentHashMap<K, LongAdder> rollup, Map<K, long[]> counts) {
+        counts.forEach((key, count) -> {
+            LongAdder adder = new LongAdder();
+            adder.add(count[0]);
+            rollup.put(key, adder);
+        });
+    }
+
+    // ---------- REPORTS ----------
+
+    public List<Map.Entry<Book, Long>> topBorrowedBooks(int n) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        // Bounded min-heap: O(books * log n) instead of sorting every title
+        PriorityQueue<Map.Entry<Book, Long>> heap = new PriorityQueue<>(
+                (a, b) -> Long.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Book, LongAdder> e : rollups.borrowsByBook.entrySet()) {
+            heap.offer(Map.entry(e.getKey(), e.getValue().sum()));
+            if (heap.size() > n) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Book, Long>> top = new ArrayList<>(heap);
+        top.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return top;
+    }
+
+    public long timesBorrowed(Book book) {
+        LongAdder count = rollups.borrowsByBook.get(book);
+        return count == null ? 0 : count.sum();
+    }
+
+    // Aggregated from the per-book rollup when the report runs, so issuing never has to read
+    // (and, with off-heap strings, decode) the category text
+    public Map<String, Long> circulationByCategory() {
+        Map<String, Long> result = new TreeMap<>();
+        rollups.borrowsByBook.forEach((book, count) -> result.merge(book.getCategory(), count.sum(), Long::sum));
+        return result;
+    }
+
+    public Map<Member, Long> memberActivity() {
+        Map<Member, Long> result = new TreeMap<>((a, b) -> Integer.compare(a.getId(), b.getId()));
+        rollups.borrowsByMember.forEach((member, count) -> result.put(member, count.sum()));
+        return result;
+    }
+
+    // Average days between issue and return, over returned loans only
+    public double averageLoanDays() {
+        Rollups r = rollups;
+        long count = r.returnedLoans.sum();
+        return count == 0 ? 0.0 : (double) r.returnedLoanDays.sum() / count;
+    }
+
+    private static long loanDays(Loan loan) {
+        return loan.getReturnEpochDay() - loan.getIssueEpochDay();
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+// Line-oriented command interface for headless (kiosk/batch) mode. Reads commands from
+// standard input until "quit" or end of input, so batch jobs can pipe a script in.
+
+public class LibraryConsole {
+
+    private static final String HELP = String.join("\n",
+            "Commands:",
+            "  books | members | loans | active",
+            "  member <name prefix | email | phone>",
+            "  search <query>            ranked, typo-tolerant search",
+            "  title <keyword> | author <keyword>",
+            "  add-book <title>|<author>|<category>",
+            "  add-member <name>|<email>|<phone>",
+            "  issue <bookId> <memberId>",
+            "  return <loanId>",
+            "  issued <from> <to> | due <from> <to> | overdue   (dates as yyyy-MM-dd)",
+            "  top <n> | categories | activity | rebuild-stats | cache | replication",
+            "  export <books|members|loans|active>   tab-separated, streamed in batches",
+            "  help | quit");
+
+    private final LibraryService libraryService;
+    private final ReplicationLeader replication; // null unless started with --replicate-to
+
+    public LibraryConsole(LibraryService service) {
+        this(service, null);
+    }
+
+    public LibraryConsole(LibraryService service, ReplicationLeader replication) {
+        this.libraryService = service;
+        this.replication = replication;
+    }
+
+    public void run() throws IOException {
+        run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    // For callers that have already read from the same input, e.g. a promoted standby
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.equals("quit") || line.equals("exit")) {
+                return;
+            }
+            try {
+                execute(line);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                System.out.println("Invalid arguments. Type 'help' for usage.");
+            }
+        }
+    }
+
+    private void execute(String line) {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String args = space < 0 ? "" : line.substring(space + 1).trim();
+
+        switch (command) {
+            case "books":
+                libraryService.listAllBooks();
+                break;
+            case "members":
+                libraryService.listAllMembers();
+                break;
+            case "member":
+                libraryService.searchMembers(args);
+                break;
+            case "loans":
+                libraryService.listAllLoans();
+                break;
+            case "active":
+                libraryService.listActiveLoans();
+                break;
+            case "search":
+                libraryService.searchBooks(args);
+                break;
+            case "title":
+                libraryService.searchBooksByTitle(args);
+                break;
+            case "author":
+                libraryService.searchBooksByAuthor(args);
+                break;
+            case "add-book": {
+                String[] f = args.split("\\|", -1);
+                libraryService.addBook(f[0].trim(), f[1].trim(), f[2].trim());
+                break;
+            }
+            case "add-member": {
+                String[] f = args.split("\\|", -1);
+                libraryService.addMember(f[0].trim(), f[1].trim(), f[2].trim());
+                break;
+            }
+            case "issue": {
+                String[] f = args.split("\\s+");
+                libraryService.issueBook(Integer.parseInt(f[0]), Integer.parseInt(f[1]));
+                break;
+            }
+            case "return":
+                libraryService.returnBook(Integer.parseInt(args));
+                break;
+            case "issued": {
+                String[] f = args.split("\\s+");
+                libraryService.listLoansIssuedBetween(LocalDate.parse(f[0]), LocalDate.parse(f[1]));
+                break;
+            }
+            case "due": {
+                String[] f = args.split("\\s+");
+                libraryService.listLoansDueBetween(LocalDate.parse(f[0]), LocalDate.parse(f[1]));
+                break;
+            }
+            case "overdue":
+                libraryService.listOverdueLoans();
+                break;
+            case "top":
+                libraryService.listTopBorrowedBooks(args.isEmpty() ? 10 : Integer.parseInt(args));
+                break;
+            case "categories":
+                libraryService.listCirculationByCategory();
+                break;
+            case "replication":
+                System.out.println(replication != null ? replication.getStatus()
+                        : "Replication is off (start with --replicate-to=host:port).");
+                break;
+            case "cache":
+                System.out.println(libraryService.getSearchCache());
+                break;
+            case "activity":
+                libraryService.listMemberActivity();
+                break;
+            case "rebuild-stats":
+                libraryService.rebuildAnalytics();
+                System.out.println("Circulation statistics rebuilt.");
+                break;
+            case "export":
+                export(args);
+                break;
+            case "help":
+                System.out.println(HELP);
+                break;
+            default:
+                System.out.println("Unknown command: " + command + ". Type 'help' for usage.");
+        }
+    }
+
+    // Rows are formatted from the snapshot the query runs on, not the live objects, so an export
+    // shows one version even while issues and returns continue
+    private void export(String what) {
+        LibrarySnapshot snap = libraryService.snapshot();
+        switch (what) {
+            case "books":
+                drain(libraryService.queryBooks().asOf(snap).publisher(), (Book b) -> b.getId() + "\t" + b.getTitle()
+                        + "\t" + b.getAuthor() + "\t" + b.getCategory() + "\t" + snap.isAvailable(b));
+                break;
+            case "members":
+                drain(libraryService.queryMembers().publisher(), (Member m) -> m.getId() + "\t" + m.getName()
+                        + "\t" + m.getEmail() + "\t" + m.getPhone());
+                break;
+            case "loans":
+                drain(libraryService.queryLoans().asOf(snap).publisher(), l -> loanRow(snap, l));
+                break;
+            case "active":
+                drain(libraryService.queryLoans().activeOnly().asOf(snap).publisher(), l -> loanRow(snap, l));
+                break;
+            default:
+                System.out.println("Nothing to export for: " + what + ". Type 'help' for usage.");
+        }
+    }
+
+    private static String loanRow(LibrarySnapshot snap, Loan l) {
+        LocalDate returned = snap.getReturnDate(l);
+        return l.getId() + "\t" + l.getBook().getId() + "\t" + l.getMember().getId() + "\t" + l.getIssueDate()
+                + "\t" + l.getDueDate() + "\t" + (returned != null ? returned : "");
+    }
+
+    private <T> void drain(Flow.Publisher<T> publisher, Function<T, String> format) {
+        ExportSubscriber<T> subscriber = new ExportSubscriber<>(System.out, format, 256);
+        publisher.subscribe(subscriber);
+        try {
+            System.out.println("Exported " + subscriber.await() + " rows.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Export interrupted.");
+        } catch (IllegalStateException e) {
+            // A failed query ends this export, not the console
+            System.out.println(e.getMessage());
+        }
+    }
+}
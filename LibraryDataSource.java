@@ -0,0 +1,22 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Where a LibraryService gets its initial books and members from at startup
+
+public interface LibraryDataSource {
+
+    void load(LibraryService service) throws IOException;
+
+    // "sample" (built-in demo data), "none" (start empty) or a path to a data file
+    static LibraryDataSource forSpec(String spec) {
+        switch (spec) {
+            case "sample":
+                return new SampleDataSource();
+            case "none":
+                return service -> {
+                };
+            default:
+                return new FileDataSource(Paths.get(spec));
+        }
+    }
+}
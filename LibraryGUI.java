@@ -1,4 +1,7 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.plaf.ColorUIResource;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.border.*;
 import java.awt.*;
@@ -9,6 +12,7 @@ public class LibraryGUI extends JFrame {
 
     private LibraryService libraryService;
     private JTabbedPane tabbedPane;
+    private JPanel headerPanel;
     private boolean isDarkMode = false;
 
     // Color schemes
@@ -22,6 +26,13 @@ public class LibraryGUI extends JFrame {
     private Color darkAccent = new Color(70, 130, 180); // Steel blue
     private Color darkSecondary = new Color(45, 45, 45);
 
+    // Theme-aware colours: they resolve against isDarkMode whenever they are painted,
+    // so switching theme is a flag flip plus one repaint instead of a component-tree walk
+    private Color themeBg = new ThemeColor(lightBg, darkBg);
+    private Color themeFg = new ThemeColor(lightFg, darkFg);
+    private Color themeAccent = new ThemeColor(lightAccent, darkAccent);
+    private Color themeSecondary = new ThemeColor(lightSecondary, darkSecondary);
+
     // Dashboard components
     private JLabel totalBooksLabel;
     private JLabel totalMembersLabel;
@@ -41,22 +52,48 @@ public class LibraryGUI extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        installThemeDefaults();
         initComponents();
-        applyTheme();
         refreshAllData();
     }
 
+    // Builds and shows the window on the Event Dispatch Thread
+    public static void launch(LibraryService service) {
+        launch(service, null);
+    }
+
+    // Same, showing the replication status in the header when this node is a leader
+    public static void launch(LibraryService service, ReplicationLeader replication) {
+        SwingUtilities.invokeLater(() -> {
+            LibraryGUI gui = new LibraryGUI(service);
+            if (replication != null) {
+                gui.showReplicationStatus(replication);
+            }
+            gui.setVisible(true);
+        });
+    }
+
+    private void showReplicationStatus(ReplicationLeader replication) {
+        JLabel statusLabel = new JLabel(replication.getStatus());
+        statusLabel.setFont(new Font("Inter", Font.PLAIN, 12));
+        statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        headerPanel.add(statusLabel, BorderLayout.CENTER);
+        new Timer(1000, e -> statusLabel.setText(replication.getStatus())).start();
+    }
+
     private void initComponents() {
         // Main panel
         JPanel mainPanel = new JPanel(new BorderLayout());
 
         // Header
-        JPanel headerPanel = createHeader();
+        headerPanel = createHeader();
         mainPanel.add(headerPanel, BorderLayout.NORTH);
 
         // Tabbed pane
         tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Inter", Font.PLAIN, 14));
+        tabbedPane.setBackground(themeBg);
+        tabbedPane.setForeground(themeFg);
 
         tabbedPane.addTab("Dashboard", createDashboardPanel());
         tabbedPane.addTab("Books", createBooksPanel());
@@ -158,10 +195,20 @@ public class LibraryGUI extends JFrame {
 
         JButton refreshButton = new JButton("Refresh");
         refreshButton.setFont(new Font("Inter", Font.PLAIN, 14));
-        refreshButton.addActionListener(e -> refreshBooksTable());
+        refreshButton.addActionListener(e -> refreshBooksTable(libraryService.snapshot()));
+
+        JTextField searchField = new JTextField(20);
+        searchField.setFont(new Font("Inter", Font.PLAIN, 14));
+
+        JButton searchButton = new JButton("Search");
+        searchButton.setFont(new Font("Inter", Font.PLAIN, 14));
+        searchButton.addActionListener(e -> searchBooks(searchField.getText().trim()));
+        searchField.addActionListener(e -> searchBooks(searchField.getText().trim()));
 
         topPanel.add(addButton);
         topPanel.add(refreshButton);
+        topPanel.add(searchField);
+        topPanel.add(searchButton);
 
         panel.add(topPanel, BorderLayout.NORTH);
 
@@ -198,7 +245,7 @@ public class LibraryGUI extends JFrame {
 
         JButton refreshButton = new JButton("Refresh");
         refreshButton.setFont(new Font("Inter", Font.PLAIN, 14));
-        refreshButton.addActionListener(e -> refreshMembersTable());
+        refreshButton.addActionListener(e -> refreshMembersTable(libraryService.snapshot()));
 
         topPanel.add(addButton);
         topPanel.add(refreshButton);
@@ -242,7 +289,7 @@ public class LibraryGUI extends JFrame {
 
         JButton refreshButton = new JButton("Refresh");
         refreshButton.setFont(new Font("Inter", Font.PLAIN, 14));
-        refreshButton.addActionListener(e -> refreshLoansTable());
+        refreshButton.addActionListener(e -> refreshLoansTable(libraryService.snapshot()));
 
         topPanel.add(issueButton);
         topPanel.add(returnButton);
@@ -355,7 +402,11 @@ public class LibraryGUI extends JFrame {
                 return;
             }
 
-            libraryService.addMember(name, email, phone);
+            if (libraryService.addMember(name, email, phone) == null) {
+                JOptionPane.showMessageDialog(dialog, "A member with this email or phone already exists!", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             refreshAllData();
             dialog.dispose();
             JOptionPane.showMessageDialog(this, "Member added successfully!", "Success",
@@ -376,29 +427,45 @@ public class LibraryGUI extends JFrame {
     private void showIssueBookDialog() {
         JDialog dialog = new JDialog(this, "Issue Book", true);
         dialog.setLayout(new BorderLayout());
-        dialog.setSize(400, 250);
+        dialog.setSize(400, 290);
         dialog.setLocationRelativeTo(this);
 
-        JPanel formPanel = new JPanel(new GridLayout(2, 2, 10, 10));
+        JPanel formPanel = new JPanel(new GridLayout(3, 2, 10, 10));
         formPanel.setBorder(new EmptyBorder(20, 20, 20, 20));
 
         JComboBox<String> bookCombo = new JComboBox<>();
+        JTextField memberSearchField = new JTextField();
         JComboBox<String> memberCombo = new JComboBox<>();
 
+        LibrarySnapshot snapshot = libraryService.snapshot();
+
         // Populate books
-        for (Book book : libraryService.getBooks()) {
-            if (book.isAvailable()) {
-                bookCombo.addItem(book.getId() + " - " + book.getTitle());
+        List<Book> books = snapshot.getBooks();
+        for (int i = 0; i < books.size(); i++) {
+            if (snapshot.isAvailable(i)) {
+                bookCombo.addItem(books.get(i).getId() + " - " + books.get(i).getTitle());
             }
         }
 
-        // Populate members
-        for (Member member : libraryService.getMembers()) {
-            memberCombo.addItem(member.getId() + " - " + member.getName());
-        }
+        // Members are looked up as the librarian types a name, email or phone
+        fillMemberCombo(memberCombo, "");
+        memberSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                fillMemberCombo(memberCombo, memberSearchField.getText().trim());
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                fillMemberCombo(memberCombo, memberSearchField.getText().trim());
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
 
         formPanel.add(new JLabel("Select Book:"));
         formPanel.add(bookCombo);
+        formPanel.add(new JLabel("Find Member:"));
+        formPanel.add(memberSearchField);
         formPanel.add(new JLabel("Select Member:"));
         formPanel.add(memberCombo);
 
@@ -437,6 +504,20 @@ public class LibraryGUI extends JFrame {
         dialog.setVisible(true);
     }
 
+    private void fillMemberCombo(JComboBox<String> memberCombo, String query) {
+        memberCombo.removeAllItems();
+        List<Member> matches;
+        if (query.isEmpty()) {
+            List<Member> members = libraryService.getMembers();
+            matches = members.subList(0, Math.min(members.size(), 50));
+        } else {
+            matches = libraryService.lookupMembers(query, 50);
+        }
+        for (Member member : matches) {
+            memberCombo.addItem(member.getId() + " - " + member.getName());
+        }
+    }
+
     private void showReturnBookDialog() {
         JDialog dialog = new JDialog(this, "Return Book", true);
         dialog.setLayout(new BorderLayout());
@@ -449,8 +530,11 @@ public class LibraryGUI extends JFrame {
         JComboBox<String> loanCombo = new JComboBox<>();
 
         // Populate active loans
-        for (Loan loan : libraryService.getLoans()) {
-            if (!loan.isReturned()) {
+        LibrarySnapshot snapshot = libraryService.snapshot();
+        List<Loan> loans = snapshot.getLoans();
+        for (int i = 0; i < loans.size(); i++) {
+            if (!snapshot.isReturned(i)) {
+                Loan loan = loans.get(i);
                 loanCombo.addItem(
                         loan.getId() + " - " + loan.getBook().getTitle() + " (" + loan.getMember().getName() + ")");
             }
@@ -490,22 +574,38 @@ public class LibraryGUI extends JFrame {
         dialog.setVisible(true);
     }
 
-    private void refreshBooksTable() {
+    private void refreshBooksTable(LibrarySnapshot snapshot) {
         booksTableModel.setRowCount(0);
-        for (Book book : libraryService.getBooks()) {
-            booksTableModel.addRow(new Object[] {
-                    book.getId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getCategory(),
-                    book.isAvailable() ? "Yes" : "No"
-            });
+        List<Book> books = snapshot.getBooks();
+        for (int i = 0; i < books.size(); i++) {
+            addBookRow(books.get(i), snapshot.isAvailable(i));
+        }
+    }
+
+    private void searchBooks(String query) {
+        if (query.isEmpty()) {
+            refreshBooksTable(libraryService.snapshot());
+            return;
+        }
+        booksTableModel.setRowCount(0);
+        for (Book book : libraryService.fuzzySearchBooks(query, 50)) {
+            addBookRow(book, book.isAvailable());
         }
     }
 
-    private void refreshMembersTable() {
+    private void addBookRow(Book book, boolean available) {
+        booksTableModel.addRow(new Object[] {
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getCategory(),
+                available ? "Yes" : "No"
+        });
+    }
+
+    private void refreshMembersTable(LibrarySnapshot snapshot) {
         membersTableModel.setRowCount(0);
-        for (Member member : libraryService.getMembers()) {
+        for (Member member : snapshot.getMembers()) {
             membersTableModel.addRow(new Object[] {
                     member.getId(),
                     member.getName(),
@@ -515,84 +615,86 @@ public class LibraryGUI extends JFrame {
         }
     }
 
-    private void refreshLoansTable() {
+    private void refreshLoansTable(LibrarySnapshot snapshot) {
         loansTableModel.setRowCount(0);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-        for (Loan loan : libraryService.getLoans()) {
+        List<Loan> loans = snapshot.getLoans();
+        for (int i = 0; i < loans.size(); i++) {
+            Loan loan = loans.get(i);
             loansTableModel.addRow(new Object[] {
                     loan.getId(),
                     loan.getBook().getTitle(),
                     loan.getMember().getName(),
                     loan.getIssueDate().format(formatter),
                     loan.getDueDate().format(formatter),
-                    loan.isReturned() ? "Returned" : "Active"
+                    snapshot.isReturned(i) ? "Returned" : "Active"
             });
         }
     }
 
-    private void refreshDashboard() {
-        List<Book> books = libraryService.getBooks();
-        List<Member> members = libraryService.getMembers();
-        List<Loan> loans = libraryService.getLoans();
-
-        totalBooksLabel.setText(String.valueOf(books.size()));
-        totalMembersLabel.setText(String.valueOf(members.size()));
-
-        long activeLoans = loans.stream().filter(l -> !l.isReturned()).count();
-        activeLoansLabel.setText(String.valueOf(activeLoans));
-
-        long availableBooks = books.stream().filter(Book::isAvailable).count();
-        availableBooksLabel.setText(String.valueOf(availableBooks));
+    private void refreshDashboard(LibrarySnapshot snapshot) {
+        totalBooksLabel.setText(String.valueOf(snapshot.getBooks().size()));
+        totalMembersLabel.setText(String.valueOf(snapshot.getMembers().size()));
+        activeLoansLabel.setText(String.valueOf(snapshot.countActiveLoans()));
+        availableBooksLabel.setText(String.valueOf(snapshot.countAvailableBooks()));
     }
 
     private void refreshAllData() {
-        refreshBooksTable();
-        refreshMembersTable();
-        refreshLoansTable();
-        refreshDashboard();
+        // One snapshot so every tab shows the same version
+        LibrarySnapshot snapshot = libraryService.snapshot();
+        refreshBooksTable(snapshot);
+        refreshMembersTable(snapshot);
+        refreshLoansTable(snapshot);
+        refreshDashboard(snapshot);
+    }
+
+    // Registers the theme colours as look-and-feel defaults before any component is created,
+    // so every panel, table and dialog picks them up when its UI delegate is installed
+    private void installThemeDefaults() {
+        UIManager.put("Panel.background", themeBg);
+        UIManager.put("Panel.foreground", themeFg);
+        UIManager.put("Label.foreground", themeFg);
+        UIManager.put("Button.background", themeAccent);
+        UIManager.put("Button.foreground", new ColorUIResource(Color.WHITE));
+        UIManager.put("Table.background", themeBg);
+        UIManager.put("Table.foreground", themeFg);
+        UIManager.put("TableHeader.background", themeSecondary);
+        UIManager.put("TableHeader.foreground", themeFg);
+        UIManager.put("TextArea.background", themeSecondary);
+        UIManager.put("TextArea.foreground", themeFg);
+        UIManager.put("Viewport.background", themeBg);
+        UIManager.put("OptionPane.background", themeBg);
+        UIManager.put("OptionPane.messageForeground", themeFg);
+
+        getContentPane().setBackground(themeBg);
     }
 
     private void applyTheme() {
-        Color bg = isDarkMode ? darkBg : lightBg;
-        Color fg = isDarkMode ? darkFg : lightFg;
-        Color accent = isDarkMode ? darkAccent : lightAccent;
-        Color secondary = isDarkMode ? darkSecondary : lightSecondary;
+        repaint();
+    }
 
-        // Apply to main components
-        getContentPane().setBackground(bg);
-        tabbedPane.setBackground(bg);
-        tabbedPane.setForeground(fg);
+    private class ThemeColor extends Color {
+        private static final long serialVersionUID = 1L;
 
-        // Apply recursively to all components
-        applyThemeToComponent(getContentPane(), bg, fg, accent, secondary);
+        private final Color light;
+        private final Color dark;
 
-        repaint();
-    }
+        ThemeColor(Color light, Color dark) {
+            super(light.getRGB());
+            this.light = light;
+            this.dark = dark;
+        }
 
-    private void applyThemeToComponent(Component comp, Color bg, Color fg, Color accent, Color secondary) {
-        if (comp instanceof JPanel) {
-            comp.setBackground(bg);
-            comp.setForeground(fg);
-        } else if (comp instanceof JLabel) {
-            comp.setForeground(fg);
-        } else if (comp instanceof JButton) {
-            comp.setBackground(accent);
-            comp.setForeground(Color.WHITE);
-        } else if (comp instanceof JTable) {
-            comp.setBackground(bg);
-            comp.setForeground(fg);
-            ((JTable) comp).getTableHeader().setBackground(secondary);
-            ((JTable) comp).getTableHeader().setForeground(fg);
-        } else if (comp instanceof JTextArea) {
-            comp.setBackground(secondary);
-            comp.setForeground(fg);
+        @Override
+        public int getRGB() {
+            return (isDarkMode ? dark : light).getRGB();
         }
 
-        if (comp instanceof Container) {
-            for (Component child : ((Container) comp).getComponents()) {
-                applyThemeToComponent(child, bg, fg, accent, secondary);
-            }
+        // Color.equals compares getRGB(), so the hash must follow the current theme too
+        @Override
+        public int hashCode() {
+            return getRGB();
         }
     }
 }
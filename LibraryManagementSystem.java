@@ -1,13 +1,89 @@
 // Main class to launch the Library Management System GUI
+//
+// Options:
+//   --headless                 no Swing/AWT; serve commands from standard input (kiosk/batch)
+//   --data=sample|none|<file>  initial data (default: sample); see FileDataSource for the format
+//   --replicate-to=host:port   ship circulation changes to a ReplicationFollower standby
+//
+// Headless startup can be cut further with an AppCDS archive of the loaded classes. CDS only
+// archives classes loaded from jars (a class directory on the path is rejected), so package first:
+//   jar --create --file library.jar --main-class LibraryManagementSystem *.class
+//   java -XX:ArchiveClassesAtExit=library.jsa -jar library.jar --headless < /dev/null
+//   java -XX:SharedArchiveFile=library.jsa -jar library.jar --headless
 
 public class LibraryManagementSystem {
 
-    public static void main(String[] args) {
-        // Launch GUI on Event Dispatch Thread
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            LibraryService libraryService = new LibraryService();
-            LibraryGUI gui = new LibraryGUI(libraryService);
-            gui.setVisible(true);
-        });
+    private static final String USAGE =
+            "Usage: java LibraryManagementSystem [--headless] [--data=sample|none|<file>] [--replicate-to=host:port]";
+
+    public static void main(String[] args) throws Exception {
+        boolean headless = false;
+        String dataSpec = "sample";
+        String replicateTo = null;
+        for (String arg : args) {
+            if (arg.equals("--headless")) {
+                headless = true;
+            } else if (arg.startsWith("--data=")) {
+                dataSpec = arg.substring("--data=".length());
+            } else if (arg.startsWith("--replicate-to=")) {
+                replicateTo = arg.substring("--replicate-to=".length());
+            } else {
+                System.out.println("Unknown option: " + arg);
+                System.out.println(USAGE);
+                return;
+            }
+        }
+
+        String replicaHost = null;
+        int replicaPort = 0;
+        if (replicateTo != null) {
+            int colon = replicateTo.lastIndexOf(':');
+            replicaPort = colon > 0 ? parsePort(replicateTo.substring(colon + 1)) : -1;
+            if (replicaPort < 0) {
+                System.out.println("Invalid --replicate-to value: '" + replicateTo
+                        + "' (expected host:port with a port from 1 to 65535)");
+                System.out.println(USAGE);
+                return;
+            }
+            replicaHost = replicateTo.substring(0, colon);
+        }
+
+        if (headless) {
+            // Keeps AWT from initialising if anything touches it
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        LibraryService libraryService = new LibraryService(1, 1);
+        libraryService.setQuiet(true);
+        LibraryDataSource.forSpec(dataSpec).load(libraryService);
+        libraryService.setQuiet(false);
+        ReplicationLeader leader = null;
+        if (replicaHost != null) {
+            leader = new ReplicationLeader(libraryService, replicaHost, replicaPort);
+            leader.start();
+        }
+
+        if (headless) {
+            ProcessHandle.current().info().startInstant().ifPresent(start -> System.out.println(
+                    "Ready in " + (System.currentTimeMillis() - start.toEpochMilli()) + " ms"));
+            new LibraryConsole(libraryService, leader).run();
+        } else {
+            // Swing classes are only loaded on this path
+            LibraryGUI.launch(libraryService, leader);
+        }
+    }
+
+    // Port number, or -1 if text is not one
+    private static int parsePort(String text) {
+        if (text.isEmpty() || text.length() > 5) {
+            return -1;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        int port = Integer.parseInt(text);
+        return port >= 1 && port <= 65535 ? port : -1;
     }
 }
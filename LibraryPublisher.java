@@ -0,0 +1,138 @@
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Cold Flow.Publisher over a lazily evaluated query (see BookQuery, MemberQuery and LoanQuery).
+// Each subscriber gets its own evaluation, started on its first request(n) against the snapshot
+// current at that moment, and is sent at most as many items as it has requested. Nothing is
+// buffered, so a subscriber that requests in batches consumes any result size in constant memory.
+//
+// Delivery runs on the given executor, or on the thread that calls request(n) when none is given;
+// a request(n) from inside onNext is picked up by the running drain loop rather than recursing.
+
+public class LibraryPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<Stream<T>> source;
+    private final Executor executor;
+
+    public LibraryPublisher(Supplier<Stream<T>> source) {
+        this(source, Runnable::run);
+    }
+
+    public LibraryPublisher(Supplier<Stream<T>> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new QuerySubscription<>(subscriber, source, executor));
+    }
+
+    private static class QuerySubscription<T> implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Supplier<Stream<T>> source;
+        private final Executor executor;
+
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+
+        // Only touched by the drain loop, which never runs on two threads at once
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        QuerySubscription(Flow.Subscriber<? super T> subscriber, Supplier<Stream<T>> source, Executor executor) {
+            this.subscriber = subscriber;
+            this.source = source;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request(n) requires n > 0, got " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            scheduleDrain(); // releases the query on the drain thread
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                close();
+                return;
+            }
+            if (badRequest != null) {
+                close();
+                subscriber.onError(badRequest);
+                return;
+            }
+            try {
+                if (iterator == null) {
+                    stream = source.get();
+                    iterator = stream.iterator();
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted < requested && !cancelled && iterator.hasNext()) {
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    close();
+                } else if (!iterator.hasNext()) {
+                    close();
+                    subscriber.onComplete();
+                }
+            } catch (RuntimeException e) {
+                close();
+                subscriber.onError(e);
+            }
+        }
+
+        private void close() {
+            done = true;
+            iterator = null;
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+}
@@ -1,55 +1,214 @@
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class LibraryService {
 
-    private List<Book> books;
-    private List<Member> members;
-    private List<Loan> loans;
+    private AppendOnlyList<Book> books;
+    private AppendOnlyList<Member> members;
+    private AppendOnlyList<Loan> loans;
+    private CopyOnWriteFlags bookAvailable;
+    private CopyOnWriteFlags loanReturned;
+    private LoanDateIndex loansByIssueDate;
+    private LoanDateIndex loansByDueDate;
+    // Loans not yet returned, so overdue and other active-only windows skip returned loans
+    private LoanDateIndex activeLoansByIssueDate;
+    private LoanDateIndex activeLoansByDueDate;
 
     private int bookIdCounter = 1;
     private int memberIdCounter = 1;
     private int loanIdCounter = 1;
+    private int idStart = 1;
+    private int idStride = 1;
+
+    private LibraryAnalytics analytics = new LibraryAnalytics();
+    private final Object analyticsRebuildLock = new Object(); // one rebuild at a time
+    private SearchCache searchCache = new SearchCache(4096);
+    private FuzzySearchIndex fuzzyIndex = new FuzzySearchIndex();
+    private MemberDirectory memberDirectory = new MemberDirectory();
+    // Copy-on-write array rather than a list so notifying allocates no iterator
+    private volatile CirculationListener[] listeners = new CirculationListener[0];
+    private boolean quiet;
+
+    // Today's date, recomputed only once the cached day has ended. Day and deadline are published
+    // together so callers outside the service lock never see one without the other.
+    private volatile CachedDay cachedDay = new CachedDay(0, 0);
+
+    // Writers hold the service lock and bump the version; readers get an immutable
+    // snapshot that is rebuilt at most once per version
+    private volatile long version;
+    private volatile LibrarySnapshot snapshot;
 
     public LibraryService() {
-        books = new ArrayList<>();
-        members = new ArrayList<>();
-        loans = new ArrayList<>();
-        seedData(); // optional sample data
+        this(1, 1);
+        new SampleDataSource().load(this); // optional sample data
     }
 
-    private void seedData() {
-        addBook("The Alchemist", "Paulo Coelho", "Fiction");
-        addBook("Clean Code", "Robert C. Martin", "Programming");
-        addBook("Introduction to Algorithms", "Cormen", "Education");
-
-        addMember("Rahul", "rahul@example.com", "9876543210");
-        addMember("Priya", "priya@example.com", "9123456780");
+    // Starts empty; load data with a LibraryDataSource. ids run idStart, idStart + idStride, ...
+    // so the shards of a ShardedLibrary never collide.
+    public LibraryService(int idStart, int idStride) {
+        books = new AppendOnlyList<>();
+        members = new AppendOnlyList<>();
+        loans = new AppendOnlyList<>();
+        bookAvailable = new CopyOnWriteFlags();
+        loanReturned = new CopyOnWriteFlags();
+        loansByIssueDate = new LoanDateIndex();
+        loansByDueDate = new LoanDateIndex();
+        activeLoansByIssueDate = new LoanDateIndex();
+        activeLoansByDueDate = new LoanDateIndex();
+        bookIdCounter = idStart;
+        memberIdCounter = idStart;
+        loanIdCounter = idStart;
+        this.idStart = idStart;
+        this.idStride = idStride;
     }
 
-    // Getter methods for GUI
+    // Getter methods for GUI (immutable, from the current snapshot)
     public List<Book> getBooks() {
-        return books;
+        return snapshot().getBooks();
     }
 
     public List<Member> getMembers() {
-        return members;
+        return snapshot().getMembers();
     }
 
     public List<Loan> getLoans() {
-        return loans;
+        return snapshot().getLoans();
+    }
+
+    public LibrarySnapshot snapshot() {
+        LibrarySnapshot s = snapshot;
+        if (s != null && s.getVersion() == version) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot == null || snapshot.getVersion() != version) {
+                snapshot = new LibrarySnapshot(version, idStart, idStride,
+                        books.snapshot(), members.snapshot(), loans.snapshot(),
+                        bookAvailable.freeze(), loanReturned.freeze(),
+                        loansByIssueDate.view(), loansByDueDate.view(),
+                        activeLoansByIssueDate.view(), activeLoansByDueDate.view());
+            }
+            return snapshot;
+        }
+    }
+
+    public LibraryAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // Recomputes the circulation rollups from the full loan history. The parallel pass runs on a
+    // snapshot without the service lock; then, under the lock, only the loans issued and returned
+    // since that snapshot are added before the rebuilt rollups are swapped in.
+    public void rebuildAnalytics() {
+        synchronized (analyticsRebuildLock) {
+            LibrarySnapshot snap = snapshot();
+            LibraryAnalytics.Rollups rebuilt = analytics.compute(snap);
+            synchronized (this) {
+                int seen = snap.getLoans().size();
+                loanReturned.forEachSetSince(snap.getLoanReturnedFlags(),
+                        i -> LibraryAnalytics.recordReturn(rebuilt, loans.get(i)));
+                for (int i = seen; i < loans.size(); i++) {
+                    LibraryAnalytics.recordIssue(rebuilt, loans.get(i));
+                    if (loanReturned.get(i)) {
+                        LibraryAnalytics.recordReturn(rebuilt, loans.get(i));
+                    }
+                }
+                analytics.install(rebuilt);
+            }
+        }
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public synchronized void addListener(CirculationListener listener) {
+        CirculationListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+
+    public synchronized void removeListener(CirculationListener listener) {
+        List<CirculationListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new CirculationListener[0]);
+    }
+
+    // Suppresses the success messages printed by add/issue/return, e.g. for kiosks and bulk loads
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    // Position of a locally allocated book/member/loan id in its list, or -1 if this
+    // service could not have allocated the id
+    private int indexOf(int id) {
+        int offset = id - idStart;
+        if (offset < 0 || offset % idStride != 0) {
+            return -1;
+        }
+        return offset / idStride;
+    }
+
+    // Position range [from, to) of the ids between fromId and toId inclusive, for query pushdown
+    int firstIndexAtOrAfter(int fromId) {
+        long index = -Math.floorDiv(idStart - (long) fromId, idStride);
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, index));
+    }
+
+    int indexAfter(int toId) {
+        long index = Math.floorDiv((long) toId - idStart, idStride) + 1;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, index));
+    }
+
+    private int today() {
+        CachedDay day = cachedDay;
+        if (System.currentTimeMillis() >= day.nextDayStartMillis) {
+            LocalDate date = LocalDate.now();
+            day = new CachedDay((int) date.toEpochDay(),
+                    date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            cachedDay = day;
+        }
+        return day.epochDay;
+    }
+
+    private static final class CachedDay {
+        final int epochDay;
+        final long nextDayStartMillis;
+
+        CachedDay(int epochDay, long nextDayStartMillis) {
+            this.epochDay = epochDay;
+            this.nextDayStartMillis = nextDayStartMillis;
+        }
     }
 
     // ---------- BOOK OPERATIONS ----------
 
-    public void addBook(String title, String author, String category) {
-        Book book = new Book(bookIdCounter++, title, author, category);
+    public synchronized Book addBook(String title, String author, String category) {
+        Book book = Book.of(bookIdCounter, title, author, category);
+        bookIdCounter += idStride;
         books.add(book);
-        System.out.println("Book added successfully with ID: " + book.getId());
+        bookAvailable.add(true);
+        version++;
+        searchCache.invalidate(book);
+        fuzzyIndex.add(book);
+        for (CirculationListener l : listeners) {
+            l.bookAdded(book);
+        }
+        if (!quiet) {
+            System.out.println("Book added successfully with ID: " + book.getId());
+        }
+        return book;
     }
 
     public void listAllBooks() {
+        List<Book> books = getBooks();
         if (books.isEmpty()) {
             System.out.println("No books found.");
             return;
@@ -59,50 +218,124 @@ public class LibraryService {
         }
     }
 
-    public Book findBookById(int id) {
-        for (Book b : books) {
-            if (b.getId() == id) {
-                return b;
+    public synchronized Book findBookById(int id) {
+        int index = indexOf(id);
+        return index >= 0 && index < books.size() ? books.get(index) : null;
+    }
+
+    public List<Book> findBooksByTitle(String keyword) {
+        String key = keyword.toLowerCase();
+        List<Book> results = searchCache.getByTitle(key);
+        if (results == null) {
+            LibrarySnapshot snap = snapshot();
+            List<Book> matches = new ArrayList<>();
+            for (Book b : snap.getBooks()) {
+                if (b.getTitle().toLowerCase().contains(key)) {
+                    matches.add(b);
+                }
+            }
+            // Callers share the list with the cache, so it must not be modifiable
+            results = Collections.unmodifiableList(matches);
+            synchronized (this) {
+                // Skip caching if a book was added while scanning; it may be missing from results
+                if (snap.getBooks().size() == books.size()) {
+                    searchCache.putByTitle(key, results);
+                }
             }
         }
-        return null;
+        return results;
     }
 
-    public void searchBooksByTitle(String keyword) {
-        boolean found = false;
-        for (Book b : books) {
-            if (b.getTitle().toLowerCase().contains(keyword.toLowerCase())) {
-                System.out.println(b);
-                found = true;
+    public List<Book> findBooksByAuthor(String keyword) {
+        String key = keyword.toLowerCase();
+        List<Book> results = searchCache.getByAuthor(key);
+        if (results == null) {
+            LibrarySnapshot snap = snapshot();
+            List<Book> matches = new ArrayList<>();
+            for (Book b : snap.getBooks()) {
+                if (b.getAuthor().toLowerCase().contains(key)) {
+                    matches.add(b);
+                }
+            }
+            // Callers share the list with the cache, so it must not be modifiable
+            results = Collections.unmodifiableList(matches);
+            synchronized (this) {
+                // Skip caching if a book was added while scanning; it may be missing from results
+                if (snap.getBooks().size() == books.size()) {
+                    searchCache.putByAuthor(key, results);
+                }
             }
         }
-        if (!found) {
+        return results;
+    }
+
+    public void searchBooksByTitle(String keyword) {
+        List<Book> results = findBooksByTitle(keyword);
+        if (results.isEmpty()) {
             System.out.println("No books found with title containing: " + keyword);
+            return;
+        }
+        for (Book b : results) {
+            System.out.println(b);
         }
     }
 
     public void searchBooksByAuthor(String keyword) {
-        boolean found = false;
-        for (Book b : books) {
-            if (b.getAuthor().toLowerCase().contains(keyword.toLowerCase())) {
-                System.out.println(b);
-                found = true;
-            }
-        }
-        if (!found) {
+        List<Book> results = findBooksByAuthor(keyword);
+        if (results.isEmpty()) {
             System.out.println("No books found with author containing: " + keyword);
+            return;
+        }
+        for (Book b : results) {
+            System.out.println(b);
+        }
+    }
+
+    // Ranked, typo-tolerant search over title, author and category
+    public List<Book> fuzzySearchBooks(String query, int limit) {
+        return fuzzyIndex.search(query, limit);
+    }
+
+    public List<Map.Entry<Book, Integer>> fuzzySearchBooksScored(String query, int limit) {
+        return fuzzyIndex.searchScored(query, limit);
+    }
+
+    public void searchBooks(String query) {
+        List<Book> results = fuzzySearchBooks(query, 10);
+        if (results.isEmpty()) {
+            System.out.println("No books found matching: " + query);
+            return;
+        }
+        for (Book b : results) {
+            System.out.println(b);
         }
     }
 
     // ---------- MEMBER OPERATIONS ----------
 
-    public void addMember(String name, String email, String phone) {
-        Member m = new Member(memberIdCounter++, name, email, phone);
+    // Returns null without adding anything if the email or phone is already registered
+    public synchronized Member addMember(String name, String email, String phone) {
+        Member existing = memberDirectory.findConflict(email, phone);
+        if (existing != null) {
+            System.out.println("Member ID " + existing.getId() + " already uses this email or phone.");
+            return null;
+        }
+        Member m = Member.of(memberIdCounter, name, email, phone);
+        memberIdCounter += idStride;
         members.add(m);
-        System.out.println("Member added successfully with ID: " + m.getId());
+        memberDirectory.add(m);
+        version++;
+        for (CirculationListener l : listeners) {
+            l.memberAdded(m);
+        }
+        if (!quiet) {
+            System.out.println("Member added successfully with ID: " + m.getId());
+        }
+        return m;
     }
 
     public void listAllMembers() {
+        List<Member> members = getMembers();
         if (members.isEmpty()) {
             System.out.println("No members found.");
             return;
@@ -112,25 +345,78 @@ public class LibraryService {
         }
     }
 
-    public Member findMemberById(int id) {
-        for (Member m : members) {
-            if (m.getId() == id) {
-                return m;
-            }
+    public synchronized Member findMemberById(int id) {
+        int index = indexOf(id);
+        return index >= 0 && index < members.size() ? members.get(index) : null;
+    }
+
+    public synchronized Member findMemberByEmail(String email) {
+        return memberDirectory.findByEmail(email);
+    }
+
+    public synchronized Member findMemberByPhone(String phone) {
+        return memberDirectory.findByPhone(phone);
+    }
+
+    public synchronized List<Member> findMembersByNamePrefix(String prefix, int limit) {
+        return memberDirectory.findByNamePrefix(prefix, limit);
+    }
+
+    // Paged name-prefix walk for MemberQuery: the cursor is created freely, each page is read
+    // under the service lock
+    MemberDirectory.NameCursor memberNameCursor(String prefix) {
+        return memberDirectory.nameCursor(prefix);
+    }
+
+    synchronized List<Member> nextMembersByNamePrefix(MemberDirectory.NameCursor cursor, int max) {
+        return cursor.next(max);
+    }
+
+    // Type-ahead for the desk: an exact email or phone match, otherwise members whose name
+    // has a word starting with the query
+    public synchronized List<Member> lookupMembers(String query, int limit) {
+        Member exact = query.indexOf('@') >= 0 ? memberDirectory.findByEmail(query) : null;
+        if (exact == null && !MemberDirectory.normalizePhone(query).isEmpty()) {
+            exact = memberDirectory.findByPhone(query);
+        }
+        if (exact != null) {
+            List<Member> results = new ArrayList<>(1);
+            results.add(exact);
+            return results;
+        }
+        return memberDirectory.findByNamePrefix(query, limit);
+    }
+
+    public void searchMembers(String query) {
+        List<Member> results = lookupMembers(query, 20);
+        if (results.isEmpty()) {
+            System.out.println("No members found matching: " + query);
+            return;
+        }
+        for (Member m : results) {
+            System.out.println(m);
         }
-        return null;
     }
 
     // ---------- LOAN OPERATIONS ----------
 
-    public void issueBook(int bookId, int memberId) {
-        Book book = findBookById(bookId);
+    public synchronized Loan findLoanById(int id) {
+        int index = indexOf(id);
+        return index >= 0 && index < loans.size() ? loans.get(index) : null;
+    }
+
+    public synchronized void issueBook(int bookId, int memberId) {
+        issueOn(bookId, memberId, today());
+    }
+
+    // Issue with an explicit date, used when replaying a replicated circulation log
+    public synchronized void issueBook(int bookId, int memberId, LocalDate issueDate) {
+        issueOn(bookId, memberId, (int) issueDate.toEpochDay());
+    }
+
+    private void issueOn(int bookId, int memberId, int issueEpochDay) {
+        Book book = findIssuableBook(bookId);
         if (book == null) {
-            System.out.println("Book not found.");
-            return;
-        }
-        if (!book.isAvailable()) {
-            System.out.println("Book is already issued to someone else.");
             return;
         }
 
@@ -140,25 +426,65 @@ public class LibraryService {
             return;
         }
 
-        LocalDate issueDate = LocalDate.now();
-        LocalDate dueDate = issueDate.plusDays(14); // 2 weeks
-        Loan loan = new Loan(loanIdCounter++, book, member, issueDate, dueDate);
+        issue(book, member, issueEpochDay);
+    }
+
+    // Issues a local book to a member that may be registered at another branch
+    public synchronized void issueBook(int bookId, Member member) {
+        Book book = findIssuableBook(bookId);
+        if (book == null) {
+            return;
+        }
+        issue(book, member, today());
+    }
+
+    private Book findIssuableBook(int bookId) {
+        Book book = findBookById(bookId);
+        if (book == null) {
+            System.out.println("Book not found.");
+            return null;
+        }
+        if (!book.isAvailable()) {
+            System.out.println("Book is already issued to someone else.");
+            return null;
+        }
+        return book;
+    }
+
+    private void issue(Book book, Member member, int issueEpochDay) {
+        int dueEpochDay = issueEpochDay + 14; // 2 weeks
+        Loan loan = new Loan(loanIdCounter, book, member, issueEpochDay, dueEpochDay);
+        loanIdCounter += idStride;
         loans.add(loan);
+        loanReturned.add(false);
+        loansByIssueDate.add(issueEpochDay, loans.size() - 1);
+        loansByDueDate.add(dueEpochDay, loans.size() - 1);
+        activeLoansByIssueDate.add(issueEpochDay, loans.size() - 1);
+        activeLoansByDueDate.add(dueEpochDay, loans.size() - 1);
         book.setAvailable(false);
+        bookAvailable.set(indexOf(book.getId()), false);
+        version++;
+        analytics.recordIssue(loan);
+        for (CirculationListener l : listeners) {
+            l.bookIssued(loan);
+        }
 
-        System.out.println("Book issued successfully.");
-        System.out.println(loan);
+        if (!quiet) {
+            System.out.println("Book issued successfully.");
+            System.out.println(loan);
+        }
     }
 
-    public void returnBook(int loanId) {
-        Loan loan = null;
-        for (Loan l : loans) {
-            if (l.getId() == loanId) {
-                loan = l;
-                break;
-            }
-        }
+    public synchronized void returnBook(int loanId) {
+        returnOn(loanId, today());
+    }
 
+    public synchronized void returnBook(int loanId, LocalDate returnDate) {
+        returnOn(loanId, (int) returnDate.toEpochDay());
+    }
+
+    private void returnOn(int loanId, int returnEpochDay) {
+        Loan loan = findLoanById(loanId);
         if (loan == null) {
             System.out.println("Loan not found.");
             return;
@@ -169,13 +495,26 @@ public class LibraryService {
             return;
         }
 
-        loan.markReturned();
+        loan.markReturned(returnEpochDay);
+        int position = indexOf(loan.getId());
+        loanReturned.set(position, true);
+        activeLoansByIssueDate.remove(loan.getIssueEpochDay(), position);
+        activeLoansByDueDate.remove(loan.getDueEpochDay(), position);
         loan.getBook().setAvailable(true);
-        System.out.println("Book returned successfully.");
-        System.out.println(loan);
+        bookAvailable.set(indexOf(loan.getBook().getId()), true);
+        version++;
+        analytics.recordReturn(loan);
+        for (CirculationListener l : listeners) {
+            l.bookReturned(loan);
+        }
+        if (!quiet) {
+            System.out.println("Book returned successfully.");
+            System.out.println(loan);
+        }
     }
 
     public void listAllLoans() {
+        List<Loan> loans = getLoans();
         if (loans.isEmpty()) {
             System.out.println("No loan records found.");
             return;
@@ -186,10 +525,11 @@ public class LibraryService {
     }
 
     public void listActiveLoans() {
+        LibrarySnapshot snap = snapshot();
         boolean found = false;
-        for (Loan l : loans) {
-            if (!l.isReturned()) {
-                System.out.println(l);
+        for (int i = 0; i < snap.getLoans().size(); i++) {
+            if (!snap.isReturned(i)) {
+                System.out.println(snap.getLoans().get(i));
                 found = true;
             }
         }
@@ -197,4 +537,83 @@ public class LibraryService {
             System.out.println("No active loans found.");
         }
     }
+
+    public Stream<Loan> loansIssuedBetween(LocalDate from, LocalDate to) {
+        return snapshot().loansIssuedBetween(from, to, false);
+    }
+
+    public Stream<Loan> loansDueBetween(LocalDate from, LocalDate to, boolean activeOnly) {
+        return snapshot().loansDueBetween(from, to, activeOnly);
+    }
+
+    public void listLoansIssuedBetween(LocalDate from, LocalDate to) {
+        printLoans(loansIssuedBetween(from, to), "No loans issued between " + from + " and " + to + ".");
+    }
+
+    public void listLoansDueBetween(LocalDate from, LocalDate to) {
+        printLoans(loansDueBetween(from, to, true), "No active loans due between " + from + " and " + to + ".");
+    }
+
+    public void listOverdueLoans() {
+        LocalDate yesterday = LocalDate.ofEpochDay(today() - 1L);
+        printLoans(loansDueBetween(LocalDate.MIN, yesterday, true), "No overdue loans.");
+    }
+
+    private void printLoans(Stream<Loan> loans, String noneMessage) {
+        Iterator<Loan> it = loans.iterator();
+        if (!it.hasNext()) {
+            System.out.println(noneMessage);
+            return;
+        }
+        while (it.hasNext()) {
+            System.out.println(it.next());
+        }
+    }
+
+    // ---------- STREAMING QUERIES ----------
+
+    // Lazy queries that can be consumed as a Stream or as a Flow.Publisher with backpressure
+    public BookQuery queryBooks() {
+        return new BookQuery(this);
+    }
+
+    public MemberQuery queryMembers() {
+        return new MemberQuery(this);
+    }
+
+    public LoanQuery queryLoans() {
+        return new LoanQuery(this);
+    }
+
+    // ---------- REPORTS ----------
+
+    public void listTopBorrowedBooks(int n) {
+        List<Map.Entry<Book, Long>> top = analytics.topBorrowedBooks(n);
+        if (top.isEmpty()) {
+            System.out.println("No loan records found.");
+            return;
+        }
+        for (Map.Entry<Book, Long> e : top) {
+            System.out.println(e.getValue() + " loans - " + e.getKey());
+        }
+    }
+
+    public void listMemberActivity() {
+        Map<Member, Long> activity = analytics.memberActivity();
+        if (activity.isEmpty()) {
+            System.out.println("No loan records found.");
+            return;
+        }
+        activity.forEach((member, count) -> System.out.println(count + " loans - " + member));
+    }
+
+    public void listCirculationByCategory() {
+        Map<String, Long> byCategory = analytics.circulationByCategory();
+        if (byCategory.isEmpty()) {
+            System.out.println("No loan records found.");
+            return;
+        }
+        byCategory.forEach((category, count) -> System.out.println(category + ": " + count + " loans"));
+        System.out.printf("Average loan duration: %.1f days%n", analytics.averageLoanDays());
+    }
 }
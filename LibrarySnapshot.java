@@ -0,0 +1,122 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Immutable point-in-time view of a LibraryService for readers (GUI tables, reports, exports).
+// Book availability and loan status are captured when the snapshot is taken, so a reader sees
+// one consistent version even while issues and returns keep running. Taking a snapshot shares
+// the underlying storage (see AppendOnlyList and CopyOnWriteFlags) instead of copying it.
+
+public class LibrarySnapshot {
+
+    private final long version;
+    private final int idStart;
+    private final int idStride;
+    private final List<Book> books;
+    private final List<Member> members;
+    private final List<Loan> loans;
+    private final CopyOnWriteFlags.Frozen bookAvailable;
+    private final CopyOnWriteFlags.Frozen loanReturned;
+    private final LoanDateIndex.View loansByIssueDate;
+    private final LoanDateIndex.View loansByDueDate;
+    private final LoanDateIndex.View activeLoansByIssueDate;
+    private final LoanDateIndex.View activeLoansByDueDate;
+
+    LibrarySnapshot(long version, int idStart, int idStride, List<Book> books, List<Member> members, List<Loan> loans,
+            CopyOnWriteFlags.Frozen bookAvailable, CopyOnWriteFlags.Frozen loanReturned,
+            LoanDateIndex.View loansByIssueDate, LoanDateIndex.View loansByDueDate,
+            LoanDateIndex.View activeLoansByIssueDate, LoanDateIndex.View activeLoansByDueDate) {
+        this.version = version;
+        this.idStart = idStart;
+        this.idStride = idStride;
+        this.books = books;
+        this.members = members;
+        this.loans = loans;
+        this.bookAvailable = bookAvailable;
+        this.loanReturned = loanReturned;
+        this.loansByIssueDate = loansByIssueDate;
+        this.loansByDueDate = loansByDueDate;
+        this.activeLoansByIssueDate = activeLoansByIssueDate;
+        this.activeLoansByDueDate = activeLoansByDueDate;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public List<Loan> getLoans() {
+        return loans;
+    }
+
+    // Availability of getBooks().get(index) as of this snapshot
+    public boolean isAvailable(int index) {
+        return bookAvailable.get(index);
+    }
+
+    // Status of getLoans().get(index) as of this snapshot
+    public boolean isReturned(int index) {
+        return loanReturned.get(index);
+    }
+
+    // Same, by the book itself; the book must be in getBooks()
+    public boolean isAvailable(Book book) {
+        return bookAvailable.get(position(book.getId()));
+    }
+
+    // Same, by the loan itself; the loan must be in getLoans()
+    public boolean isReturned(Loan loan) {
+        return loanReturned.get(position(loan.getId()));
+    }
+
+    // Return date of a loan as of this snapshot, or null if it was still out
+    public LocalDate getReturnDate(Loan loan) {
+        return isReturned(loan) ? loan.getReturnDate() : null;
+    }
+
+    // Loan status flags as frozen for this snapshot, for diffing against later changes
+    CopyOnWriteFlags.Frozen getLoanReturnedFlags() {
+        return loanReturned;
+    }
+
+    public int countAvailableBooks() {
+        return bookAvailable.countSet();
+    }
+
+    public int countActiveLoans() {
+        return loans.size() - loanReturned.countSet();
+    }
+
+    // ---------- DATE WINDOW QUERIES (inclusive, lazily streamed in date order) ----------
+    // Active-only windows read indexes that hold unreturned loans only, so their cost follows
+    // the number of active loans in the window, not of all loans ever issued in it.
+
+    public Stream<Loan> loansIssuedBetween(LocalDate from, LocalDate to, boolean activeOnly) {
+        return window(activeOnly ? activeLoansByIssueDate : loansByIssueDate, from, to);
+    }
+
+    public Stream<Loan> loansDueBetween(LocalDate from, LocalDate to, boolean activeOnly) {
+        return window(activeOnly ? activeLoansByDueDate : loansByDueDate, from, to);
+    }
+
+    private Stream<Loan> window(LoanDateIndex.View index, LocalDate from, LocalDate to) {
+        return index.positionsBetween(toEpochDay(from), toEpochDay(to)).mapToObj(loans::get);
+    }
+
+    // Books, members and loans all take ids idStart + k * idStride, k being the list position
+    private int position(int id) {
+        return (id - idStart) / idStride;
+    }
+
+    // Clamped so LocalDate.MIN/MAX work as open bounds
+    private static int toEpochDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+}
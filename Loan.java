@@ -4,16 +4,22 @@ public class Loan {
     private int id;
     private Book book;
     private Member member;
-    private LocalDate issueDate;
-    private LocalDate dueDate;
+    // Dates are kept as epoch days so issuing and returning allocate no LocalDate objects
+    private int issueEpochDay;
+    private int dueEpochDay;
+    private int returnEpochDay;
     private boolean returned;
 
     public Loan(int id, Book book, Member member, LocalDate issueDate, LocalDate dueDate) {
+        this(id, book, member, (int) issueDate.toEpochDay(), (int) dueDate.toEpochDay());
+    }
+
+    public Loan(int id, Book book, Member member, int issueEpochDay, int dueEpochDay) {
         this.id = id;
         this.book = book;
         this.member = member;
-        this.issueDate = issueDate;
-        this.dueDate = dueDate;
+        this.issueEpochDay = issueEpochDay;
+        this.dueEpochDay = dueEpochDay;
         this.returned = false;
     }
 
@@ -30,11 +36,28 @@ public class Loan {
     }
 
     public LocalDate getIssueDate() {
-        return issueDate;
+        return LocalDate.ofEpochDay(issueEpochDay);
     }
 
     public LocalDate getDueDate() {
-        return dueDate;
+        return LocalDate.ofEpochDay(dueEpochDay);
+    }
+
+    public LocalDate getReturnDate() {
+        return returned ? LocalDate.ofEpochDay(returnEpochDay) : null;
+    }
+
+    public int getIssueEpochDay() {
+        return issueEpochDay;
+    }
+
+    public int getDueEpochDay() {
+        return dueEpochDay;
+    }
+
+    // Only meaningful once the loan is returned
+    public int getReturnEpochDay() {
+        return returnEpochDay;
     }
 
     public boolean isReturned() {
@@ -42,7 +65,16 @@ public class Loan {
     }
 
     public void markReturned() {
+        markReturned(LocalDate.now());
+    }
+
+    public void markReturned(LocalDate returnDate) {
+        markReturned((int) returnDate.toEpochDay());
+    }
+
+    public void markReturned(int returnEpochDay) {
         this.returned = true;
+        this.returnEpochDay = returnEpochDay;
     }
 
     @Override
@@ -53,8 +85,8 @@ public class Loan {
                 ", bookTitle='" + book.getTitle() + '\'' +
                 ", memberId=" + member.getId() +
                 ", memberName='" + member.getName() + '\'' +
-                ", issueDate=" + issueDate +
-                ", dueDate=" + dueDate +
+                ", issueDate=" + getIssueDate() +
+                ", dueDate=" + getDueDate() +
                 ", returned=" + (returned ? "Yes" : "No") +
                 '}';
     }
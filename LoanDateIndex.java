@@ -0,0 +1,270 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Secondary index of loans ordered by a date (as epoch day), used for window queries such as
+// "issued last week" or "due between X and Y" in O(log n + k) instead of a scan of every loan.
+//
+// Entries are (epochDay, loan position) pairs kept sorted by day, then position, in blocks of at
+// most BLOCK_SIZE, like the leaves of a B+-tree; a directory lists the blocks in order. Loans are
+// issued with non-decreasing dates, so the common case appends to the last block. An out-of-order
+// date (a replayed or back-dated loan) or a removal only shifts entries within one block, and a
+// full block splits in two, so an import in any order stays O(log n + BLOCK_SIZE) per loan.
+// The last block is kept when it empties, so an index that drains and refills (the active-loan
+// indexes) does not allocate a block per loan.
+//
+// view() is O(1): the view shares the directory and remembers the size of the last block.
+// Appending past that size, or adding blocks after it, changes nothing the view reads. Anything
+// else first copies the directory (once per view) and copies a block the first time it shifts
+// entries in it after a view (like CopyOnWriteFlags), so what a view can see is never written.
+// Mutation and view() must be externally synchronized.
+
+public class LoanDateIndex {
+
+    private static final int BLOCK_SIZE = 256;
+
+    private int[][] dayBlocks = new int[0][];
+    private int[][] positionBlocks = new int[0][];
+    private int[] blockSizes = new int[0];
+    private long[] blockEpochs = new long[0];
+    private int blockCount;
+    private long epoch = 1;
+    private boolean directoryShared; // with the latest view
+    private int size;
+
+    public void add(int epochDay, int position) {
+        int b = blockCount - 1;
+        if (b < 0 || blockSizes[b] == 0 || compare(epochDay, position, b, blockSizes[b] - 1) > 0) {
+            // In date order: append to the last block, or start a new one
+            if (b < 0 || blockSizes[b] == BLOCK_SIZE) {
+                insertBlock(blockCount, new int[BLOCK_SIZE], new int[BLOCK_SIZE], 0);
+                b++;
+            }
+            int n = blockSizes[b];
+            dayBlocks[b][n] = epochDay;
+            positionBlocks[b][n] = position;
+            blockSizes[b] = n + 1;
+            size++;
+            return;
+        }
+
+        ownDirectory();
+        b = blockFor(epochDay, position);
+        if (blockSizes[b] == BLOCK_SIZE) {
+            split(b);
+            if (compare(epochDay, position, b + 1, 0) >= 0) {
+                b++;
+            }
+        }
+        writable(b);
+        int n = blockSizes[b];
+        int at = -search(dayBlocks[b], positionBlocks[b], n, epochDay, position) - 1;
+        System.arraycopy(dayBlocks[b], at, dayBlocks[b], at + 1, n - at);
+        System.arraycopy(positionBlocks[b], at, positionBlocks[b], at + 1, n - at);
+        dayBlocks[b][at] = epochDay;
+        positionBlocks[b][at] = position;
+        blockSizes[b] = n + 1;
+        size++;
+    }
+
+    // Removes the entry added with these values; returns false if there is none
+    public boolean remove(int epochDay, int position) {
+        if (blockCount == 0) {
+            return false;
+        }
+        int b = blockFor(epochDay, position);
+        int n = blockSizes[b];
+        int at = search(dayBlocks[b], positionBlocks[b], n, epochDay, position);
+        if (at < 0) {
+            return false;
+        }
+        ownDirectory();
+        size--;
+        if (n == 1 && blockCount > 1) {
+            removeBlock(b);
+            return true;
+        }
+        writable(b);
+        System.arraycopy(dayBlocks[b], at + 1, dayBlocks[b], at, n - at - 1);
+        System.arraycopy(positionBlocks[b], at + 1, positionBlocks[b], at, n - at - 1);
+        blockSizes[b] = n - 1;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public View view() {
+        epoch++;
+        directoryShared = true;
+        return new View(dayBlocks, positionBlocks, blockSizes, blockCount,
+                blockCount == 0 ? 0 : blockSizes[blockCount - 1]);
+    }
+
+    private void ownDirectory() {
+        if (directoryShared) {
+            dayBlocks = dayBlocks.clone();
+            positionBlocks = positionBlocks.clone();
+            blockSizes = blockSizes.clone();
+            blockEpochs = blockEpochs.clone();
+            directoryShared = false;
+        }
+    }
+
+    // Last block whose first entry is at or before (epochDay, position), or block 0
+    private int blockFor(int epochDay, int position) {
+        int lo = 1;
+        int hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(epochDay, position, mid, 0) >= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+
+    private int compare(int epochDay, int position, int block, int index) {
+        int day = dayBlocks[block][index];
+        return epochDay != day ? Integer.compare(epochDay, day)
+                : Integer.compare(position, positionBlocks[block][index]);
+    }
+
+    // Copies block b if a view may still be reading it
+    private void writable(int b) {
+        if (blockEpochs[b] != epoch) {
+            dayBlocks[b] = dayBlocks[b].clone();
+            positionBlocks[b] = positionBlocks[b].clone();
+            blockEpochs[b] = epoch;
+        }
+    }
+
+    // Moves the upper half of a full block into a new block after it
+    private void split(int b) {
+        int half = BLOCK_SIZE / 2;
+        int[] upperDays = new int[BLOCK_SIZE];
+        int[] upperPositions = new int[BLOCK_SIZE];
+        System.arraycopy(dayBlocks[b], half, upperDays, 0, BLOCK_SIZE - half);
+        System.arraycopy(positionBlocks[b], half, upperPositions, 0, BLOCK_SIZE - half);
+        writable(b);
+        blockSizes[b] = half;
+        insertBlock(b + 1, upperDays, upperPositions, BLOCK_SIZE - half);
+    }
+
+    private void insertBlock(int at, int[] days, int[] positions, int count) {
+        if (blockCount == dayBlocks.length) {
+            int capacity = Math.max(4, blockCount * 2);
+            dayBlocks = Arrays.copyOf(dayBlocks, capacity);
+            positionBlocks = Arrays.copyOf(positionBlocks, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+            blockEpochs = Arrays.copyOf(blockEpochs, capacity);
+        }
+        int tail = blockCount - at;
+        System.arraycopy(dayBlocks, at, dayBlocks, at + 1, tail);
+        System.arraycopy(positionBlocks, at, positionBlocks, at + 1, tail);
+        System.arraycopy(blockSizes, at, blockSizes, at + 1, tail);
+        System.arraycopy(blockEpochs, at, blockEpochs, at + 1, tail);
+        dayBlocks[at] = days;
+        positionBlocks[at] = positions;
+        blockSizes[at] = count;
+        blockEpochs[at] = epoch;
+        blockCount++;
+    }
+
+    private void removeBlock(int at) {
+        int tail = blockCount - at - 1;
+        System.arraycopy(dayBlocks, at + 1, dayBlocks, at, tail);
+        System.arraycopy(positionBlocks, at + 1, positionBlocks, at, tail);
+        System.arraycopy(blockSizes, at + 1, blockSizes, at, tail);
+        System.arraycopy(blockEpochs, at + 1, blockEpochs, at, tail);
+        blockCount--;
+        dayBlocks[blockCount] = null;
+        positionBlocks[blockCount] = null;
+    }
+
+    // Index of (epochDay, position) within one block, or -(insertion point) - 1
+    private static int search(int[] days, int[] positions, int size, int epochDay, int position) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = days[mid] != epochDay ? Integer.compare(days[mid], epochDay)
+                    : Integer.compare(positions[mid], position);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    // First index within a block whose day is at least epochDay
+    private static int lowerBound(int[] days, int size, int epochDay) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Immutable view of the index as of view()
+    public static class View {
+        private final int[][] dayBlocks;
+        private final int[][] positionBlocks;
+        private final int[] blockSizes; // shared with the index; only read below blockCount - 1
+        private final int blockCount;
+        private final int lastBlockSize;
+
+        private View(int[][] dayBlocks, int[][] positionBlocks, int[] blockSizes, int blockCount,
+                int lastBlockSize) {
+            this.dayBlocks = dayBlocks;
+            this.positionBlocks = positionBlocks;
+            this.blockSizes = blockSizes;
+            this.blockCount = blockCount;
+            this.lastBlockSize = lastBlockSize;
+        }
+
+        // Loan positions with fromDay <= day <= toDay, in date order, produced lazily
+        public IntStream positionsBetween(int fromDay, int toDay) {
+            if (fromDay > toDay || blockCount == 0) {
+                return IntStream.empty();
+            }
+            int first = blockStarting(fromDay);
+            int last = blockStarting(toDay == Integer.MAX_VALUE ? toDay : toDay + 1);
+            return IntStream.rangeClosed(first, last).flatMap(b -> {
+                int[] days = dayBlocks[b];
+                int n = b == blockCount - 1 ? lastBlockSize : blockSizes[b];
+                int lo = lowerBound(days, n, fromDay);
+                int hi = toDay == Integer.MAX_VALUE ? n : lowerBound(days, n, toDay + 1);
+                int[] positions = positionBlocks[b];
+                return IntStream.range(lo, hi).map(i -> positions[i]);
+            });
+        }
+
+        // Last block whose first day is below epochDay (the first one that can hold it), or block 0
+        private int blockStarting(int epochDay) {
+            int lo = 1;
+            int hi = blockCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (dayBlocks[mid][0] < epochDay) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Lazy query over the loans of a LibraryService, created with LibraryService.queryLoans().
+// An issue-date window is answered from the issue-date index, otherwise a due-date window from
+// the due-date index, otherwise an id range from a position range; loan status comes from the
+// snapshot flags. The remaining criteria are checked per loan as the result is pulled.
+
+public class LoanQuery {
+
+    private final LibraryService service;
+    private int fromId = Integer.MIN_VALUE;
+    private int toId = Integer.MAX_VALUE;
+    private LocalDate issuedFrom;
+    private LocalDate issuedTo;
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private boolean activeOnly;
+    private int bookId;
+    private int memberId;
+    private LibrarySnapshot snapshot;
+
+    LoanQuery(LibraryService service) {
+        this.service = service;
+    }
+
+    public LoanQuery idBetween(int fromId, int toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+        return this;
+    }
+
+    // Inclusive; LocalDate.MIN and LocalDate.MAX work as open bounds
+    public LoanQuery issuedBetween(LocalDate from, LocalDate to) {
+        this.issuedFrom = from;
+        this.issuedTo = to;
+        return this;
+    }
+
+    public LoanQuery dueBetween(LocalDate from, LocalDate to) {
+        this.dueFrom = from;
+        this.dueTo = to;
+        return this;
+    }
+
+    public LoanQuery activeOnly() {
+        this.activeOnly = true;
+        return this;
+    }
+
+    public LoanQuery book(int bookId) {
+        this.bookId = bookId;
+        return this;
+    }
+
+    public LoanQuery member(int memberId) {
+        this.memberId = memberId;
+        return this;
+    }
+
+    // Evaluate against this snapshot of the same service rather than the current one, so the
+    // caller can read loan status from the very snapshot the results came from
+    public LoanQuery asOf(LibrarySnapshot snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    // Evaluated lazily against the snapshot current when this is called. Results come in order
+    // of the indexed date for a date window, otherwise in id order.
+    public Stream<Loan> stream() {
+        LibrarySnapshot snap = snapshot != null ? snapshot : service.snapshot();
+        int from = fromId;
+        int to = toId;
+        boolean active = activeOnly;
+        int book = bookId;
+        int member = memberId;
+
+        Stream<Loan> results;
+        if (issuedFrom != null) {
+            results = snap.loansIssuedBetween(issuedFrom, issuedTo, active);
+            if (dueFrom != null) {
+                long dueFromDay = dueFrom.toEpochDay();
+                long dueToDay = dueTo.toEpochDay();
+                results = results.filter(l -> l.getDueEpochDay() >= dueFromDay && l.getDueEpochDay() <= dueToDay);
+            }
+        } else if (dueFrom != null) {
+            results = snap.loansDueBetween(dueFrom, dueTo, active);
+        } else {
+            List<Loan> loans = snap.getLoans();
+            int first = Math.min(service.firstIndexAtOrAfter(from), loans.size());
+            int last = Math.min(service.indexAfter(to), loans.size());
+            IntStream positions = IntStream.range(first, Math.max(first, last));
+            if (active) {
+                positions = positions.filter(i -> !snap.isReturned(i));
+            }
+            results = positions.mapToObj(loans::get);
+        }
+
+        if (issuedFrom != null || dueFrom != null) {
+            results = results.filter(l -> l.getId() >= from && l.getId() <= to);
+        }
+        if (book != 0) {
+            results = results.filter(l -> l.getBook().getId() == book);
+        }
+        if (member != 0) {
+            results = results.filter(l -> l.getMember().getId() == member);
+        }
+        return results;
+    }
+
+    public Flow.Publisher<Loan> publisher() {
+        return new LibraryPublisher<>(this::stream);
+    }
+}
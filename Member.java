@@ -1,39 +1,92 @@
-public class Member {
+// A library member. Like Book, its text is held either as Strings or as StringArena handles,
+// chosen once by Member.of() for the process.
+
+public abstract class Member {
+    private static final StringArena ARENA = StringArena.shared();
+
     private int id;
-    private String name;
-    private String email;
-    private String phone;
 
-    public Member(int id, String name, String email, String phone) {
+    protected Member(int id) {
         this.id = id;
-        this.name = name;
-        this.email = email;
-        this.phone = phone;
+    }
+
+    public static Member of(int id, String name, String email, String phone) {
+        return ARENA != null ? new OffHeap(id, name, email, phone) : new OnHeap(id, name, email, phone);
     }
 
     public int getId() {
         return id;
     }
 
-    public String getName() {
-        return name;
-    }
+    public abstract String getName();
 
-    public String getEmail() {
-        return email;
-    }
+    public abstract String getEmail();
 
-    public String getPhone() {
-        return phone;
-    }
+    public abstract String getPhone();
 
     @Override
     public String toString() {
         return "Member{" +
                 "id=" + id +
-                ", name='" + name + '\'' +
-                ", email='" + email + '\'' +
-                ", phone='" + phone + '\'' +
+                ", name='" + getName() + '\'' +
+                ", email='" + getEmail() + '\'' +
+                ", phone='" + getPhone() + '\'' +
                 '}';
     }
+
+    private static final class OnHeap extends Member {
+        private final String name;
+        private final String email;
+        private final String phone;
+
+        OnHeap(int id, String name, String email, String phone) {
+            super(id);
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public String getPhone() {
+            return phone;
+        }
+    }
+
+    private static final class OffHeap extends Member {
+        private final long nameRef;
+        private final long emailRef;
+        private final long phoneRef;
+
+        OffHeap(int id, String name, String email, String phone) {
+            super(id);
+            this.nameRef = ARENA.store(name);
+            this.emailRef = ARENA.store(email);
+            this.phoneRef = ARENA.store(phone);
+        }
+
+        @Override
+        public String getName() {
+            return ARENA.load(nameRef);
+        }
+
+        @Override
+        public String getEmail() {
+            return ARENA.load(emailRef);
+        }
+
+        @Override
+        public String getPhone() {
+            return ARENA.load(phoneRef);
+        }
+    }
 }
@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lookup indexes over members: unique hash indexes on email and phone (so duplicates are
+// rejected in O(1)) and a trie over the words of each name for type-ahead prefix search.
+// A blank email, or a phone with no digits ("n/a", "-"), is not a key: it is neither indexed nor
+// treated as a duplicate.
+// Mutation must be externally synchronized with lookups.
+
+public class MemberDirectory {
+
+    private final Map<String, Member> byEmail = new HashMap<>();
+    private final Map<String, Member> byPhone = new HashMap<>();
+    private final TrieNode nameRoot = new TrieNode();
+
+    private static class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        List<Member> members; // members with a name word ending here
+
+        TrieNode child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        TrieNode childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            TrieNode[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new TrieNode();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+    }
+
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase();
+    }
+
+    // Digits only, so "98765 43210" and "9876543210" are the same number
+    public static String normalizePhone(String phone) {
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    // Returns the existing member that already uses this email or phone, or null
+    public Member findConflict(String email, String phone) {
+        Member existing = findByEmail(email);
+        if (existing == null) {
+            existing = findByPhone(phone);
+        }
+        return existing;
+    }
+
+    // Same matching rule as findByNamePrefix, for a single name; prefix must be lower-case
+    public static boolean nameHasWordPrefix(String name, String prefix) {
+        for (String word : words(name)) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(Member member) {
+        String email = normalizeEmail(member.getEmail());
+        if (!email.isEmpty()) {
+            byEmail.put(email, member);
+        }
+        String phone = normalizePhone(member.getPhone());
+        if (!phone.isEmpty()) {
+            byPhone.put(phone, member);
+        }
+        for (String word : words(member.getName())) {
+            TrieNode node = nameRoot;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.childOrCreate(word.charAt(i));
+            }
+            if (node.members == null) {
+                node.members = new ArrayList<>(1);
+            }
+            // A word repeated in one name lands on the same node consecutively; list the member once
+            if (node.members.isEmpty() || node.members.get(node.members.size() - 1) != member) {
+                node.members.add(member);
+            }
+        }
+    }
+
+    public Member findByEmail(String email) {
+        String key = normalizeEmail(email);
+        return key.isEmpty() ? null : byEmail.get(key);
+    }
+
+    public Member findByPhone(String phone) {
+        String key = normalizePhone(phone);
+        return key.isEmpty() ? null : byPhone.get(key);
+    }
+
+    // Members with a name word starting with prefix, in alphabetical order of that word
+    public List<Member> findByNamePrefix(String prefix, int limit) {
+        return nameCursor(prefix).next(limit);
+    }
+
+    public NameCursor nameCursor(String prefix) {
+        return new NameCursor(prefix.trim().toLowerCase());
+    }
+
+    // Resumable walk over the members whose name has a word starting with a prefix, in
+    // alphabetical order of the first such word. It keeps only its position (a word and an index
+    // into that word's member list), so a caller can page through any number of matches in
+    // constant memory; members added behind the position are not returned. Each next() call must
+    // be synchronized with mutation, like every other lookup.
+    public class NameCursor {
+        private final String prefix;
+        private String word; // last word visited; null before the first call
+        private int offset;  // members of that word already consumed
+        private boolean done;
+
+        private NameCursor(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public List<Member> next(int max) {
+            List<Member> page = new ArrayList<>();
+            if (done || max <= 0) {
+                return page;
+            }
+            TrieNode node = nameRoot;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null || !walk(node, new StringBuilder(prefix), page, max)) {
+                done = true;
+            }
+            return page;
+        }
+
+        // In-order walk resuming after (word, offset); returns true once the page is full
+        private boolean walk(TrieNode node, StringBuilder path, List<Member> page, int max) {
+            String current = path.toString();
+            if (word != null && current.compareTo(word) < 0 && !word.startsWith(current)) {
+                return false; // the whole subtree sorts before the resume position
+            }
+            if (node.members != null) {
+                int cmp = word == null ? 1 : current.compareTo(word);
+                if (cmp >= 0) {
+                    int from = cmp == 0 ? offset : 0;
+                    for (int i = from; i < node.members.size(); i++) {
+                        Member m = node.members.get(i);
+                        word = current;
+                        offset = i + 1;
+                        // A member matching under several words is returned at the first one only
+                        if (current.equals(firstMatchingWord(m.getName(), prefix))) {
+                            page.add(m);
+                            if (page.size() >= max) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            for (int c = 0; c < node.keys.length; c++) {
+                path.append(node.keys[c]);
+                boolean full = walk(node.children[c], path, page, max);
+                path.setLength(path.length() - 1);
+                if (full) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String firstMatchingWord(String name, String prefix) {
+        String first = null;
+        for (String w : words(name)) {
+            if (w.startsWith(prefix) && (first == null || w.compareTo(first) < 0)) {
+                first = w;
+            }
+        }
+        return first;
+    }
+
+    // Lower-cased, whitespace-separated words of a name, never empty (hand-rolled rather than a
+    // regex split, which would compile a Pattern on every call)
+    static List<String> words(String name) {
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= name.length(); i++) {
+            boolean wordChar = i < name.length() && !Character.isWhitespace(name.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(name.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Lazy query over the members of a LibraryService, created with LibraryService.queryMembers().
+// The most selective criterion is answered from an index: email, then phone (MemberDirectory
+// hash lookups), then name prefix (the name trie), then id range (a position range); the rest
+// are checked per member as the result is pulled, against one snapshot.
+//
+// A name prefix lookup pages through the trie with a MemberDirectory.NameCursor, taking the
+// service lock for one page of PAGE_SIZE members at a time, so it is lazy like the other sources.
+
+public class MemberQuery {
+
+    private static final int PAGE_SIZE = 256;
+
+    private final LibraryService service;
+    private int fromId = Integer.MIN_VALUE;
+    private int toId = Integer.MAX_VALUE;
+    private String email;
+    private String phone;
+    private String namePrefix;
+
+    MemberQuery(LibraryService service) {
+        this.service = service;
+    }
+
+    public MemberQuery idBetween(int fromId, int toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+        return this;
+    }
+
+    public MemberQuery email(String email) {
+        this.email = MemberDirectory.normalizeEmail(email);
+        return this;
+    }
+
+    public MemberQuery phone(String phone) {
+        this.phone = MemberDirectory.normalizePhone(phone);
+        return this;
+    }
+
+    public MemberQuery namePrefix(String prefix) {
+        this.namePrefix = prefix.trim().toLowerCase();
+        return this;
+    }
+
+    // Evaluated lazily against the snapshot current when this is called. Results come in id
+    // order, except for a name prefix lookup, which is in alphabetical order of the matched word.
+    public Stream<Member> stream() {
+        String mail = email;
+        String tel = phone;
+        String prefix = namePrefix;
+        int from = fromId;
+        int to = toId;
+
+        Stream<Member> results;
+        // Snapshot and index lookup under the service lock, so they agree on which members exist
+        synchronized (service) {
+            LibrarySnapshot snap = service.snapshot();
+            if (mail != null) {
+                results = Stream.ofNullable(service.findMemberByEmail(mail));
+            } else if (tel != null) {
+                results = Stream.ofNullable(service.findMemberByPhone(tel));
+            } else if (prefix != null) {
+                // Pages are read later, so drop members added after the snapshot
+                List<Member> members = snap.getMembers();
+                int lastId = members.isEmpty() ? Integer.MIN_VALUE : members.get(members.size() - 1).getId();
+                results = namePrefixPages(prefix).filter(m -> m.getId() <= lastId);
+            } else {
+                List<Member> members = snap.getMembers();
+                int first = Math.min(service.firstIndexAtOrAfter(from), members.size());
+                int last = Math.min(service.indexAfter(to), members.size());
+                return IntStream.range(first, Math.max(first, last)).mapToObj(members::get);
+            }
+        }
+
+        results = results.filter(m -> m.getId() >= from && m.getId() <= to);
+        if (tel != null && mail != null) {
+            results = results.filter(m -> MemberDirectory.normalizePhone(m.getPhone()).equals(tel));
+        }
+        if (prefix != null && (mail != null || tel != null)) {
+            results = results.filter(m -> MemberDirectory.nameHasWordPrefix(m.getName(), prefix));
+        }
+        return results;
+    }
+
+    private Stream<Member> namePrefixPages(String prefix) {
+        MemberDirectory.NameCursor cursor = service.memberNameCursor(prefix);
+        Iterator<Member> pages = new Iterator<Member>() {
+            private List<Member> page = Collections.emptyList();
+            private int next;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && !exhausted) {
+                    page = service.nextMembersByNamePrefix(cursor, PAGE_SIZE);
+                    next = 0;
+                    exhausted = page.size() < PAGE_SIZE;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public Member next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    public Flow.Publisher<Member> publisher() {
+        return new LibraryPublisher<>(this::stream);
+    }
+}
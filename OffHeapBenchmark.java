@@ -0,0 +1,95 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+// Compares heap footprint and GC cost of a large catalogue with and without off-heap strings.
+//
+//   java -Xmx2g OffHeapBenchmark 2000000
+//   java -Xmx2g -Dlibrary.offheapStrings=true OffHeapBenchmark 2000000
+//
+// Builds the given number of books (plus one member per ten books) in a quiet LibraryService,
+// then churns short-lived garbage so the collector repeatedly has to deal with the live catalogue.
+
+public class OffHeapBenchmark {
+
+    public static void main(String[] args) {
+        int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        String[] vocabulary = new String[50_000]; // real catalogues reuse a bounded set of words
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        LibraryService service = new LibraryService(1, 1);
+        service.setQuiet(true);
+        for (int i = 0; i < bookCount; i++) {
+            service.addBook(words(random, vocabulary, 4), words(random, vocabulary, 2), words(random, vocabulary, 1));
+            if (i % 10 == 0) {
+                service.addMember(words(random, vocabulary, 2), "member" + i + "@example.com", "98" + (10_000_000 + i));
+            }
+        }
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long start = System.nanoTime();
+        long checksum = 0;
+        List<Book> books = service.getBooks();
+        for (int i = 0; i < 200_000; i++) {
+            checksum += new byte[16 * 1024].length; // short-lived garbage
+            checksum += books.get(random.nextInt(bookCount)).getTitle().length();
+        }
+        long churnMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        long heapUsed = rt.totalMemory() - rt.freeMemory();
+        StringArena arena = StringArena.shared();
+
+        System.out.println("Books: " + bookCount + ", off-heap strings: " + (arena != null));
+        System.out.println("Heap used after full GC: " + heapUsed / (1024 * 1024) + " MB");
+        if (arena != null) {
+            System.out.println("Off-heap text: " + arena.getStoredBytes() / (1024 * 1024) + " MB stored, "
+                    + arena.getReservedBytes() / (1024 * 1024) + " MB reserved");
+        }
+        System.out.println("GCs during churn: " + (gcCount() - gcCountBefore)
+                + ", GC time: " + (gcMillis() - gcMillisBefore) + " ms"
+                + ", churn time: " + churnMillis + " ms (checksum " + checksum + ")");
+    }
+
+    private static String words(Random random, String[] vocabulary, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < count; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(8);
+        StringBuilder sb = new StringBuilder(length);
+        for (int c = 0; c < length; c++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,81 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.concurrent.Flow;
+
+// Streams every loan of a large LibraryService through LoanQuery.publisher() with a subscriber
+// that requests small batches, and reports how much the live heap grows while doing so.
+//
+//   java -Xmx4g QueryStreamBenchmark 5000000
+//
+// With demand-driven delivery the growth should stay flat however many rows are streamed;
+// materializing the same result as a list would add roughly one reference per row plus copies.
+
+public class QueryStreamBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int loanCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        LibraryService service = new LibraryService(1, 1);
+        service.setQuiet(true);
+        for (int i = 0; i < 10_000; i++) {
+            service.addBook("Title " + i, "Author " + (i % 500), "Category " + (i % 20));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            service.addMember("Member " + i, "member" + i + "@example.com", "98" + (10_000_000 + i));
+        }
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < loanCount; i++) {
+            int bookId = 1 + i % 10_000;
+            if (i >= 10_000) {
+                service.returnBook(i + 1 - 10_000);
+            }
+            service.issueBook(bookId, 1 + i % 1_000, start.plusDays(i / 5_000));
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        long sampleEvery = Math.max(1, loanCount / 5);
+        long[] maxGrowth = new long[1];
+        long[] rows = new long[1];
+        long begin = System.nanoTime();
+        service.queryLoans().publisher().subscribe(new Flow.Subscriber<Loan>() {
+            private Flow.Subscription subscription;
+            private int remaining;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                remaining = 1024;
+                subscription.request(1024);
+            }
+
+            @Override
+            public void onNext(Loan loan) {
+                if (++rows[0] % sampleEvery == 0) {
+                    System.gc();
+                    maxGrowth[0] = Math.max(maxGrowth[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+                }
+                if (--remaining == 0) {
+                    remaining = 1024;
+                    subscription.request(1024);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throwable.printStackTrace();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+        System.out.println("Streamed " + rows[0] + " loans in batches of 1024 in " + elapsedMillis + " ms");
+        System.out.println("Max live heap growth while streaming: " + maxGrowth[0] / 1024 + " KB");
+    }
+}
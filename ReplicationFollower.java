@@ -0,0 +1,257 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.zip.GZIPInputStream;
+
+// Warm standby: accepts a ReplicationLeader connection and replays its circulation log
+// against a local LibraryService. The standby must start from the same state as the leader,
+// i.e. be loaded from the same data source. When a leader with a different epoch connects (the
+// leader was restarted, or another node is leading), the standby refuses it and stops following
+// rather than throw away its replica; the operator then either promotes it or resyncs, which
+// reloads from the data source and follows whichever leader connects next.
+//
+// Run as a separate JVM:   java ReplicationFollower 9090 [sample|none|<file>] [--gui]
+// and start the leader with:   java LibraryManagementSystem --replicate-to=localhost:9090
+// Type "promote" on the standby to stop following and serve the replica (console, or GUI
+// with --gui); "status" shows the replication position; "resync" starts over from the data source.
+
+public class ReplicationFollower implements Runnable {
+
+    private final LibraryDataSource dataSource;
+    private final int port;
+
+    private volatile LibraryService service;
+    private volatile long leaderEpoch; // 0 until the first leader connects
+    private volatile long appliedSequence;
+    private volatile long lastBatchMillis;
+    private volatile boolean diverged;
+    private volatile long refusedEpoch; // epoch of a leader refused since the last resync, or 0
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private volatile Socket connection; // the accepted leader connection, if any
+    private Thread thread;
+
+    public ReplicationFollower(LibraryDataSource dataSource, int port) throws IOException {
+        this.dataSource = dataSource;
+        this.port = port;
+        this.service = loadReplica(dataSource);
+    }
+
+    // Replays run quietly; promote() turns the usual output back on
+    private static LibraryService loadReplica(LibraryDataSource dataSource) throws IOException {
+        LibraryService replica = new LibraryService(1, 1);
+        replica.setQuiet(true);
+        dataSource.load(replica);
+        return replica;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverSocket = new ServerSocket(port);
+        running = true;
+        thread = new Thread(this, "library-replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops following so this node can take over; returns the replica to serve from. Once this
+    // returns, no further leader event is applied to it.
+    public LibraryService promote() {
+        stop();
+        LibraryService replica = service;
+        replica.setQuiet(false);
+        return replica;
+    }
+
+    // Operator action after a refused epoch (or a divergence): reloads the replica from the data
+    // source and follows the next leader to connect from its first event
+    public void resync() throws IOException {
+        stop();
+        System.out.println("Reloading the replica; the next leader to connect is replayed from the start");
+        service = loadReplica(dataSource);
+        leaderEpoch = 0;
+        appliedSequence = 0;
+        lastBatchMillis = 0;
+        diverged = false;
+        refusedEpoch = 0;
+        start();
+    }
+
+    // Closing both sockets unblocks the receiver wherever it waits, so the join cannot hang
+    private synchronized void stop() {
+        running = false;
+        closeQuietly(serverSocket);
+        closeQuietly(connection);
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.out.println("Error closing replication socket: " + e.getMessage());
+        }
+    }
+
+    // ---------- METRICS ----------
+
+    public long getLeaderEpoch() {
+        return leaderEpoch;
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getMillisSinceLastBatch() {
+        return lastBatchMillis == 0 ? -1 : System.currentTimeMillis() - lastBatchMillis;
+    }
+
+    public boolean hasDiverged() {
+        return diverged;
+    }
+
+    public boolean isFollowing() {
+        return running;
+    }
+
+    // Epoch of a leader this standby refused to follow, or 0
+    public long getRefusedEpoch() {
+        return refusedEpoch;
+    }
+
+    // ---------- RECEIVER ----------
+
+    @Override
+    public void run() {
+        while (running) {
+            try (Socket socket = serverSocket.accept()) {
+                connection = socket;
+                if (!running) {
+                    return; // stop() ran before it could see this connection
+                }
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                long epoch = in.readLong();
+                if (leaderEpoch != 0 && epoch != leaderEpoch) {
+                    refuse(epoch);
+                    return;
+                }
+                leaderEpoch = epoch;
+                // Catch-up handshake: the leader resends everything after this sequence
+                out.writeLong(appliedSequence);
+                out.flush();
+
+                while (running) {
+                    int count = in.readInt();
+                    byte[] compressed = new byte[in.readInt()];
+                    in.readFully(compressed);
+                    if (!applyBatch(count, compressed)) {
+                        return;
+                    }
+                    lastBatchMillis = System.currentTimeMillis();
+                    out.writeLong(appliedSequence);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Replication connection lost: " + e.getMessage());
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    // A leader with another epoch has a log this replica was not built from (restarted leader,
+    // or a second node leading). Following it would mean discarding the replica, which may be
+    // the only up-to-date copy, so stop and leave the choice to the operator.
+    private void refuse(long epoch) {
+        refusedEpoch = epoch;
+        running = false;
+        closeQuietly(serverSocket);
+        System.out.println("Refused leader epoch " + epoch + " (following epoch " + leaderEpoch
+                + "); replication stopped. Type 'promote' to serve this replica or 'resync' to start over.");
+    }
+
+    // Returns false if following stopped part-way; the rest of the batch is not applied
+    private boolean applyBatch(int count, byte[] compressed) throws IOException {
+        try (DataInputStream events = new DataInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+            for (int i = 0; i < count; i++) {
+                if (!running) {
+                    return false;
+                }
+                CirculationEvent event = CirculationEvent.readFrom(events);
+                if (event.getSequence() <= appliedSequence) {
+                    continue; // already applied before a reconnect
+                }
+                if (!event.applyTo(service)) {
+                    diverged = true;
+                    System.out.println("Replica diverged from leader at " + event);
+                }
+                appliedSequence = event.getSequence();
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        String dataSpec = args.length > 1 ? args[1] : "sample";
+        boolean gui = args.length > 2 && args[2].equals("--gui");
+        ReplicationFollower follower = new ReplicationFollower(LibraryDataSource.forSpec(dataSpec), port);
+        follower.start();
+        System.out.println("Standby listening on port " + port + ". Type 'promote' to take over, 'status' for lag.");
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equals("status")) {
+                System.out.println("Standby applied sequence " + follower.getAppliedSequence()
+                        + " of leader epoch " + follower.getLeaderEpoch()
+                        + ", last batch " + follower.getMillisSinceLastBatch() + " ms ago"
+                        + (follower.hasDiverged() ? ", DIVERGED" : "")
+                        + (follower.getRefusedEpoch() != 0
+                                ? ", STOPPED: refused leader epoch " + follower.getRefusedEpoch() : "")
+                        + (follower.isFollowing() ? "" : ", not following"));
+            } else if (line.equals("resync")) {
+                follower.resync();
+                System.out.println("Standby listening on port " + port + " again.");
+            } else if (line.equals("promote")) {
+                LibraryService replica = follower.promote();
+                System.out.println("Promoted at sequence " + follower.getAppliedSequence() + "; serving the replica");
+                if (gui) {
+                    LibraryGUI.launch(replica);
+                } else {
+                    new LibraryConsole(replica).run(in);
+                }
+                return;
+            } else if (!line.isEmpty()) {
+                System.out.println("Standby commands: status | promote | resync");
+            }
+        }
+    }
+}
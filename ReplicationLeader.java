@@ -0,0 +1,308 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+// Ships every mutation of a LibraryService to a ReplicationFollower over a socket.
+// Mutations are appended to an in-memory log and sent asynchronously in gzip-compressed batches;
+// the follower acknowledges each batch. On (re)connect the follower reports the last sequence it
+// applied and the leader resends everything after it (catch-up mode).
+//
+// Sequences restart at 1 for every leader process, so each one has a random epoch; a follower
+// that sees a new epoch knows the old log is gone and resyncs (see ReplicationFollower).
+// Acknowledged events are moved from memory to a temporary spill file, so the heap only holds
+// the unacknowledged tail; catch-up for a follower that is further behind reads the spill file.
+//
+// Handshake: leader sends long epoch, follower answers long appliedSequence.
+// Frame format: int eventCount, int compressedLength, gzip(event*). Ack: long appliedSequence.
+
+public class ReplicationLeader implements CirculationListener, Runnable {
+
+    private static final int MAX_BATCH = 512;
+    private static final long LINGER_MILLIS = 10;
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final LibraryService service;
+    private final String host;
+    private final int port;
+
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    // Unacknowledged events; log.get(0) has sequence spilledThrough + 1. Guarded by log.
+    private final List<CirculationEvent> log = new ArrayList<>();
+    private long lastSequence;
+    private volatile long spilledThrough;
+    private File spillFile;
+    private DataOutputStream spillOut; // only used by the sender thread
+
+    private volatile long ackedSequence;
+    private volatile long lastAckMillis;
+    private volatile boolean connected;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ReplicationLeader(LibraryService service, String host, int port) {
+        this.service = service;
+        this.host = host;
+        this.port = port;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        spillFile = File.createTempFile("library-replication-", ".log");
+        spillFile.deleteOnExit();
+        spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+        running = true;
+        service.addListener(this);
+        thread = new Thread(this, "library-replication-leader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        service.removeListener(this);
+        synchronized (log) {
+            log.notifyAll();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // ---------- CirculationListener ----------
+
+    @Override
+    public void bookAdded(Book book) {
+        synchronized (log) {
+            append(CirculationEvent.bookAdded(++lastSequence, book));
+        }
+    }
+
+    @Override
+    public void memberAdded(Member member) {
+        synchronized (log) {
+            append(CirculationEvent.memberAdded(++lastSequence, member));
+        }
+    }
+
+    @Override
+    public void bookIssued(Loan loan) {
+        synchronized (log) {
+            append(CirculationEvent.bookIssued(++lastSequence, loan));
+        }
+    }
+
+    @Override
+    public void bookReturned(Loan loan) {
+        synchronized (log) {
+            append(CirculationEvent.bookReturned(++lastSequence, loan));
+        }
+    }
+
+    private void append(CirculationEvent event) {
+        log.add(event);
+        log.notifyAll();
+    }
+
+    // ---------- METRICS ----------
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getLastSequence() {
+        synchronized (log) {
+            return lastSequence;
+        }
+    }
+
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    // Events written on the leader that the follower has not yet applied
+    public long getLagEvents() {
+        return Math.max(0, getLastSequence() - ackedSequence);
+    }
+
+    public long getMillisSinceLastAck() {
+        return lastAckMillis == 0 ? -1 : System.currentTimeMillis() - lastAckMillis;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    // One-line summary for operators (console "replication" command, GUI header)
+    public String getStatus() {
+        long acked = ackedSequence;
+        long last = getLastSequence();
+        return "Replication to " + host + ":" + port + (connected ? " connected" : " DISCONNECTED")
+                + ", follower at " + acked + " of " + last + " (lag " + Math.max(0, last - acked) + " events)"
+                + ", last ack " + getMillisSinceLastAck() + " ms ago";
+    }
+
+    // ---------- SENDER ----------
+
+    @Override
+    public void run() {
+        while (running) {
+            SpillReader spill = null;
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), (int) RECONNECT_MILLIS);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                out.writeLong(epoch);
+                out.flush();
+                long sent = in.readLong(); // follower's last applied sequence in this epoch
+                if (sent > getLastSequence()) {
+                    System.out.println("Replication follower claims sequence " + sent + " beyond the leader's "
+                            + getLastSequence() + "; stopping replication");
+                    running = false;
+                    return;
+                }
+                ackedSequence = sent;
+                connected = true;
+                System.out.println("Replication connected to " + host + ":" + port + ", follower at sequence " + sent);
+
+                while (running) {
+                    List<CirculationEvent> batch;
+                    if (sent < spilledThrough) {
+                        if (spill == null) {
+                            spill = new SpillReader(spillFile);
+                        }
+                        batch = spill.read(sent, spilledThrough);
+                    } else {
+                        batch = nextBatch(sent);
+                    }
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                    writeBatch(out, batch);
+                    ackedSequence = in.readLong();
+                    lastAckMillis = System.currentTimeMillis();
+                    sent = batch.get(batch.size() - 1).getSequence();
+                    spillThrough(ackedSequence);
+                }
+            } catch (IOException e) {
+                if (connected) {
+                    System.out.println("Replication disconnected: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                connected = false;
+                if (spill != null) {
+                    spill.close();
+                }
+            }
+            sleepBeforeReconnect();
+        }
+    }
+
+    // Moves acknowledged events from memory to the spill file. The file is written before the
+    // events leave memory, and outside the log lock so circulation never waits on disk I/O.
+    private void spillThrough(long acked) throws IOException {
+        List<CirculationEvent> done;
+        synchronized (log) {
+            int n = (int) Math.min(log.size(), acked - spilledThrough);
+            if (n <= 0) {
+                return;
+            }
+            done = new ArrayList<>(log.subList(0, n));
+        }
+        for (CirculationEvent e : done) {
+            e.writeTo(spillOut);
+        }
+        spillOut.flush();
+        synchronized (log) {
+            log.subList(0, done.size()).clear();
+            spilledThrough += done.size();
+        }
+    }
+
+    private List<CirculationEvent> nextBatch(long after) throws InterruptedException {
+        synchronized (log) {
+            while (running && lastSequence <= after) {
+                log.wait();
+            }
+            // Give concurrent writers a moment to fill the batch
+            if (running && lastSequence - after < MAX_BATCH) {
+                log.wait(LINGER_MILLIS);
+            }
+            int from = (int) Math.min(after - spilledThrough, log.size());
+            int to = Math.min(log.size(), from + MAX_BATCH);
+            return new ArrayList<>(log.subList(from, to));
+        }
+    }
+
+    private static void writeBatch(DataOutputStream out, List<CirculationEvent> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream gzip = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            for (CirculationEvent e : batch) {
+                e.writeTo(gzip);
+            }
+        }
+        out.writeInt(batch.size());
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.flush();
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // Sequential reader over the spill file for one catch-up; events are read in sequence order
+    private static class SpillReader {
+        private final DataInputStream in;
+        private long position; // sequence of the last event read
+
+        SpillReader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        // Up to MAX_BATCH events after the given sequence, never reading past through
+        List<CirculationEvent> read(long after, long through) throws IOException {
+            List<CirculationEvent> batch = new ArrayList<>();
+            while (position < through && batch.size() < MAX_BATCH) {
+                CirculationEvent e = CirculationEvent.readFrom(in);
+                position = e.getSequence();
+                if (position > after) {
+                    batch.add(e);
+                }
+            }
+            return batch;
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                System.out.println("Error closing replication spill file: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+// Small demo catalogue used when no other data source is configured
+
+public class SampleDataSource implements LibraryDataSource {
+
+    @Override
+    public void load(LibraryService service) {
+        service.addBook("The Alchemist", "Paulo Coelho", "Fiction");
+        service.addBook("Clean Code", "Robert C. Martin", "Programming");
+        service.addBook("Introduction to Algorithms", "Cormen", "Education");
+
+        service.addMember("Rahul", "rahul@example.com", "9876543210");
+        service.addMember("Priya", "priya@example.com", "9123456780");
+    }
+}
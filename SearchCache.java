@@ -0,0 +1,132 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bounded LRU cache of title/author search results, keyed by the lower-cased keyword.
+// Cached lists hold the live Book objects, so availability changes are visible without
+// invalidation; only addBook can change which books match a keyword.
+
+public class SearchCache {
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<Book>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SearchCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, List<Book>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Book>> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized List<Book> getByTitle(String keyword) {
+        return lookup(new Key(false, keyword));
+    }
+
+    public synchronized List<Book> getByAuthor(String keyword) {
+        return lookup(new Key(true, keyword));
+    }
+
+    // Results are stored as given; pass an unmodifiable list, since the caller returns it too
+    public synchronized void putByTitle(String keyword, List<Book> results) {
+        entries.put(new Key(false, keyword), results);
+    }
+
+    public synchronized void putByAuthor(String keyword, List<Book> results) {
+        entries.put(new Key(true, keyword), results);
+    }
+
+    private List<Book> lookup(Key key) {
+        List<Book> results = entries.get(key);
+        if (results == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return results;
+    }
+
+    // Drops only the cached searches whose keyword matches the new book
+    public synchronized void invalidate(Book book) {
+        String title = book.getTitle().toLowerCase();
+        String author = book.getAuthor().toLowerCase();
+        Iterator<Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if ((key.author ? author : title).contains(key.keyword)) {
+                it.remove();
+            }
+        }
+    }
+
+    // Search kind and keyword kept apart, so invalidation can test keywords without slicing keys
+    private static final class Key {
+        final boolean author;
+        final String keyword;
+
+        Key(boolean author, String keyword) {
+            this.author = author;
+            this.keyword = keyword;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).author == author && ((Key) o).keyword.equals(keyword);
+        }
+
+        @Override
+        public int hashCode() {
+            return keyword.hashCode() * 31 + (author ? 1 : 0);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // ---------- METRICS ----------
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SearchCache{" +
+                "size=" + entries.size() +
+                ", capacity=" + capacity +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", hitRate=" + String.format("%.2f", getHitRate()) +
+                '}';
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Multi-branch deployment: one LibraryService shard per branch.
+// Shard i (0-based) hands out ids i+1, i+1+n, i+1+2n, ... for books, members and loans,
+// so any id can be routed back to the shard that owns it without a lookup table.
+
+public class ShardedLibrary {
+
+    private final LibraryService[] shards;
+    private final ExecutorService searchPool;
+
+    public ShardedLibrary(int branchCount) {
+        if (branchCount <= 0) {
+            throw new IllegalArgumentException("branchCount must be positive");
+        }
+        shards = new LibraryService[branchCount];
+        for (int i = 0; i < branchCount; i++) {
+            shards[i] = new LibraryService(i + 1, branchCount);
+        }
+        searchPool = Executors.newFixedThreadPool(Math.min(branchCount, Runtime.getRuntime().availableProcessors()),
+                r -> {
+                    Thread t = new Thread(r, "library-shard-search");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public int getBranchCount() {
+        return shards.length;
+    }
+
+    // Read-only view of one branch; all writes go through the routed operations below, so
+    // cross-branch rules such as member uniqueness cannot be bypassed
+    public LibrarySnapshot getBranchSnapshot(int branch) {
+        return shards[branch].snapshot();
+    }
+
+    public void setQuiet(boolean quiet) {
+        for (LibraryService shard : shards) {
+            shard.setQuiet(quiet);
+        }
+    }
+
+    // Branch that owns a book, member or loan id
+    public int branchOf(int id) {
+        return (id - 1) % shards.length;
+    }
+
+    // ---------- ROUTED OPERATIONS ----------
+
+    public Book addBook(int branch, String title, String author, String category) {
+        return shards[branch].addBook(title, author, category);
+    }
+
+    // Email and phone are unique across all branches, not just within one (blank ones excepted,
+    // see MemberDirectory)
+    public synchronized Member addMember(int branch, String name, String email, String phone) {
+        for (LibraryService shard : shards) {
+            Member existing = shard.findMemberByEmail(email);
+            if (existing == null) {
+                existing = shard.findMemberByPhone(phone);
+            }
+            if (existing != null) {
+                System.out.println("Member ID " + existing.getId() + " already uses this email or phone.");
+                return null;
+            }
+        }
+        return shards[branch].addMember(name, email, phone);
+    }
+
+    public Member findMemberByEmail(String email) {
+        for (LibraryService shard : shards) {
+            Member m = shard.findMemberByEmail(email);
+            if (m != null) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    public Book findBookById(int id) {
+        return id > 0 ? shards[branchOf(id)].findBookById(id) : null;
+    }
+
+    public Member findMemberById(int id) {
+        return id > 0 ? shards[branchOf(id)].findMemberById(id) : null;
+    }
+
+    // The loan is recorded at the book's branch, even when the member belongs to another one
+    public void issueBook(int bookId, int memberId) {
+        Member member = findMemberById(memberId);
+        if (member == null) {
+            System.out.println("Member not found.");
+            return;
+        }
+        if (bookId <= 0) {
+            System.out.println("Book not found.");
+            return;
+        }
+        shards[branchOf(bookId)].issueBook(bookId, member);
+    }
+
+    public void returnBook(int loanId) {
+        if (loanId <= 0) {
+            System.out.println("Loan not found.");
+            return;
+        }
+        shards[branchOf(loanId)].returnBook(loanId);
+    }
+
+    // ---------- SCATTER-GATHER SEARCH ----------
+
+    public List<Book> findBooksByTitle(String keyword) {
+        return scatterGather(shard -> shard.findBooksByTitle(keyword));
+    }
+
+    public List<Book> findBooksByAuthor(String keyword) {
+        return scatterGather(shard -> shard.findBooksByAuthor(keyword));
+    }
+
+    // Each branch ranks its own top limit; the merged list keeps the best limit overall
+    public List<Book> fuzzySearchBooks(String query, int limit) {
+        List<CompletableFuture<List<Map.Entry<Book, Integer>>>> futures = new ArrayList<>(shards.length);
+        for (LibraryService shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.fuzzySearchBooksScored(query, limit), searchPool));
+        }
+        List<Map.Entry<Book, Integer>> ranked = new ArrayList<>();
+        for (CompletableFuture<List<Map.Entry<Book, Integer>>> f : futures) {
+            ranked.addAll(f.join());
+        }
+        ranked.sort((a, b) -> FuzzySearchIndex.compareWorstFirst(b, a));
+        List<Book> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            results.add(ranked.get(i).getKey());
+        }
+        return results;
+    }
+
+    private List<Book> scatterGather(Function<LibraryService, List<Book>> query) {
+        List<CompletableFuture<List<Book>>> futures = new ArrayList<>(shards.length);
+        for (LibraryService shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), searchPool));
+        }
+        List<Book> results = new ArrayList<>();
+        for (CompletableFuture<List<Book>> f : futures) {
+            results.addAll(f.join());
+        }
+        results.sort(Comparator.comparingInt(Book::getId));
+        return results;
+    }
+
+    public void shutdown() {
+        searchPool.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// End-to-end check of a ShardedLibrary with several in-process branches: id routing,
+// cross-branch circulation, cross-branch member uniqueness and scatter-gather search
+// (substring and fuzzy) against a single unsharded LibraryService holding the same books.
+//
+//   java ShardedLibraryCheck [branches] [books]
+//
+// Prints one line per check and exits with status 1 if any check fails.
+
+public class ShardedLibraryCheck {
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        int branches = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int bookCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        ShardedLibrary library = new ShardedLibrary(branches);
+        library.setQuiet(true);
+        LibraryService single = new LibraryService(1, 1);
+        single.setQuiet(true);
+
+        // Round-robin adds give the i-th book id i + 1 in both, so results can be compared by id
+        Random random = new Random(7);
+        String[] words = {"river", "garden", "shadow", "winter", "empire", "silent", "ocean", "letters"};
+        for (int i = 0; i < bookCount; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String author = "Author " + random.nextInt(50);
+            library.addBook(i % branches, title, author, "Fiction");
+            single.addBook(title, author, "Fiction");
+        }
+
+        boolean routed = true;
+        for (int id = 1; id <= bookCount; id++) {
+            Book book = library.findBookById(id);
+            routed &= book != null && book.getId() == id
+                    && library.getBranchSnapshot(library.branchOf(id)).getBooks().contains(book);
+        }
+        check("book ids route to the branch that owns them", routed);
+
+        Member first = library.addMember(0, "Asha", "asha@example.com", "9000000001");
+        Member second = library.addMember(branches - 1, "Ravi", "ravi@example.com", "9000000002");
+        check("members can be added on different branches", first != null && second != null);
+        check("duplicate email on another branch is rejected",
+                library.addMember(branches - 1, "Asha Two", "ASHA@example.com", "9000000003") == null);
+        check("duplicate phone on another branch is rejected",
+                library.addMember(1 % branches, "Ravi Two", "ravi2@example.com", "90000 00002") == null);
+        check("blank phones do not collide across branches",
+                library.addMember(0, "No Phone", "np1@example.com", "n/a") != null
+                        && library.addMember(1 % branches, "No Phone", "np2@example.com", "n/a") != null);
+
+        // Member from the first branch borrows a book owned by the last one
+        int bookId = branches;
+        library.issueBook(bookId, first.getId());
+        LibrarySnapshot owner = library.getBranchSnapshot(library.branchOf(bookId));
+        Loan loan = owner.getLoans().isEmpty() ? null : owner.getLoans().get(owner.getLoans().size() - 1);
+        check("cross-branch loan is recorded at the book's branch",
+                loan != null && loan.getBook().getId() == bookId && loan.getMember() == first
+                        && !library.findBookById(bookId).isAvailable());
+        if (loan != null) {
+            library.returnBook(loan.getId());
+        }
+        check("return is routed by loan id", library.findBookById(bookId).isAvailable());
+
+        check("scatter-gather title search matches a single service",
+                ids(library.findBooksByTitle("garden")).equals(ids(single.findBooksByTitle("garden"))));
+        check("scatter-gather author search matches a single service",
+                ids(library.findBooksByAuthor("author 4")).equals(ids(single.findBooksByAuthor("author 4"))));
+        check("scatter-gather fuzzy search matches a single service",
+                ids(library.fuzzySearchBooks("silnt ocaen", 25)).equals(ids(single.fuzzySearchBooks("silnt ocaen", 25))));
+
+        library.shutdown();
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        List<Integer> ids = new ArrayList<>(books.size());
+        for (Book b : books) {
+            ids.add(b.getId());
+        }
+        return ids;
+    }
+
+    private static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS  " : "FAIL  ") + description);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Append-only off-heap store for the text fields of Book and Member.
+// Strings are written once as UTF-8 into 16 MB direct ByteBuffer chunks and referenced by a
+// long handle (chunk << 48 | offset << 24 | length); getters decode them on every call, so
+// the catalogue text never lives on the Java heap.
+//
+// Enabled with -Dlibrary.offheapStrings=true. The memory is never released: books and members
+// are never removed from a LibraryService.
+
+public final class StringArena {
+
+    public static final long NULL_HANDLE = -1L;
+
+    private static final int CHUNK_SIZE = 1 << 24;
+    private static final StringArena SHARED = Boolean.getBoolean("library.offheapStrings") ? new StringArena() : null;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int used = CHUNK_SIZE; // forces a chunk on first store
+    private long storedBytes;
+
+    // The process-wide arena, or null when off-heap storage is disabled
+    public static StringArena shared() {
+        return SHARED;
+    }
+
+    public synchronized long store(String s) {
+        if (s == null) {
+            return NULL_HANDLE;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= CHUNK_SIZE) {
+            throw new IllegalArgumentException("String too long for off-heap storage: " + bytes.length + " bytes");
+        }
+        // A full chunk needs a new one even for an empty string: offsets must stay below CHUNK_SIZE
+        // to fit their 24 bits, and the first store has no chunk yet
+        if (used == CHUNK_SIZE || used + bytes.length > CHUNK_SIZE) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            chunks = grown;
+            used = 0;
+        }
+        int chunk = chunks.length - 1;
+        chunks[chunk].put(used, bytes);
+        long handle = ((long) chunk << 48) | ((long) used << 24) | bytes.length;
+        used += bytes.length;
+        storedBytes += bytes.length;
+        return handle;
+    }
+
+    public String load(long handle) {
+        if (handle == NULL_HANDLE) {
+            return null;
+        }
+        ByteBuffer chunk = chunks[(int) (handle >>> 48)];
+        int offset = (int) (handle >>> 24) & (CHUNK_SIZE - 1);
+        byte[] bytes = new byte[(int) handle & (CHUNK_SIZE - 1)];
+        chunk.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public long getReservedBytes() {
+        return (long) chunks.length * CHUNK_SIZE;
+    }
+}